@@ -30,11 +30,26 @@ public final class BinaryBitmap {
   private final Binarizer binarizer;
   private BitMatrix matrix;
 
+  // Set for bitmaps created by crop() and rotateCounterClockwise(): the bitmap this one was taken
+  // from, and where this one lies within it. Used to derive the matrix instead of binarizing again.
+  private final BinaryBitmap parent;
+  private final int left;
+  private final int top;
+  private final boolean rotated;
+
   public BinaryBitmap(Binarizer binarizer) {
+    this(binarizer, null, 0, 0, false);
+  }
+
+  private BinaryBitmap(Binarizer binarizer, BinaryBitmap parent, int left, int top, boolean rotated) {
     if (binarizer == null) {
       throw new IllegalArgumentException("Binarizer must be non-null.");
     }
     this.binarizer = binarizer;
+    this.parent = parent;
+    this.left = left;
+    this.top = top;
+    this.rotated = rotated;
   }
 
   /**
@@ -51,6 +66,13 @@ public final class BinaryBitmap {
     return binarizer.getHeight();
   }
 
+  /**
+   * @return The luminance data this bitmap binarizes.
+   */
+  public LuminanceSource getLuminanceSource() {
+    return binarizer.getLuminanceSource();
+  }
+
   /**
    * Converts one row of luminance data to 1 bit data. May actually do the conversion, or return
    * cached data. Callers should assume this method is expensive and call it as seldom as possible.
@@ -81,12 +103,37 @@ public final class BinaryBitmap {
     // 1. This work will never be done if the caller only installs 1D Reader objects, or if a
     //    1D Reader finds a barcode before the 2D Readers run.
     // 2. This work will only be done once even if the caller installs multiple 2D Readers.
+    // Cropped and rotated bitmaps reuse the matrix of the frame they came from when that has already
+    // been computed, so that multi-barcode recursion and rotation passes do not binarize again.
     if (matrix == null) {
-      matrix = binarizer.getBlackMatrix();
+      matrix = deriveBlackMatrix();
+      if (matrix == null) {
+        matrix = binarizer.getBlackMatrix();
+      }
     }
     return matrix;
   }
 
+  /**
+   * @return this bitmap's matrix, taken from the nearest ancestor which has already been binarized,
+   *  or null if there is none. Never triggers binarization.
+   */
+  private BitMatrix deriveBlackMatrix() {
+    if (matrix != null) {
+      return matrix;
+    }
+    if (parent == null) {
+      return null;
+    }
+    BitMatrix parentMatrix = parent.deriveBlackMatrix();
+    if (parentMatrix == null) {
+      return null;
+    }
+    matrix = rotated ? parentMatrix.rotateCounterClockwise()
+                     : parentMatrix.crop(left, top, getWidth(), getHeight());
+    return matrix;
+  }
+
   /**
    * @return Whether this bitmap can be cropped.
    */
@@ -106,7 +153,7 @@ public final class BinaryBitmap {
    */
   public BinaryBitmap crop(int left, int top, int width, int height) {
     LuminanceSource newSource = binarizer.getLuminanceSource().crop(left, top, width, height);
-    return new BinaryBitmap(binarizer.createBinarizer(newSource));
+    return new BinaryBitmap(binarizer.createBinarizer(newSource), this, left, top, false);
   }
 
   /**
@@ -124,7 +171,7 @@ public final class BinaryBitmap {
    */
   public BinaryBitmap rotateCounterClockwise() {
     LuminanceSource newSource = binarizer.getLuminanceSource().rotateCounterClockwise();
-    return new BinaryBitmap(binarizer.createBinarizer(newSource));
+    return new BinaryBitmap(binarizer.createBinarizer(newSource), this, 0, 0, true);
   }
 
   /**
@@ -16,6 +16,8 @@
 
 package com.google.zxing;
 
+import com.google.zxing.common.StripeExecutor;
+
 import java.util.List;
 
 /**
@@ -98,6 +100,55 @@ public enum DecodeHintType {
    */
   ALLOWED_EAN_EXTENSIONS(int[].class),
 
+  /**
+   * Images are consecutive frames of a video, in which the barcode moves little. Readers which
+   * support it search first where the barcode was found in the previous frame, currently QR Code.
+   * The reader instance must be reused between frames, and only one stream of frames decoded
+   * with it. Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  TRACK_BETWEEN_FRAMES(Void.class),
+
+  /**
+   * Images are large, such as high resolution camera previews. Readers which support it, currently
+   * QR Code, first look for the barcode in a downsampled copy of the image, and only measure what
+   * they found there at full resolution. Barcodes too small to be found that way are still
+   * searched for at full resolution, at extra cost.
+   * Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  COARSE_TO_FINE(Void.class),
+
+  /**
+   * Barcodes may be out of focus. Readers which support it, currently QR Code, decide each module
+   * from the mean luminance over its middle rather than from the one binarized pixel at its
+   * center. QR Code then uses the least confident codewords as erasures for Reed-Solomon
+   * decoding in blocks with more errors than it can otherwise correct.
+   * Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  SUPERSAMPLE_MODULES(Void.class),
+
+  /**
+   * Barcodes may be curved or folded. Readers which support it, currently QR Code from version 7
+   * up, locate every alignment pattern and sample each cell between them with its own transform,
+   * rather than the whole symbol with one. Doesn't matter what it maps to; use {@link Boolean#TRUE}.
+   */
+  ALIGNMENT_GRID(Void.class),
+
+  /**
+   * Decode rows in parallel. Readers which support it, currently 1D readers, hand the rows they
+   * scan out to the threads of the executor, the rotated image's included when trying harder, and
+   * still return the barcode the serial scan would find first. Readers which pair up rows, as
+   * RSS readers do, still scan them one at a time. Maps to a {@link StripeExecutor}.
+   */
+  PARALLEL_ROWS(StripeExecutor.class),
+
+  /**
+   * 1D barcodes are only returned once this many rows of the image decode to the same format and
+   * text, to avoid false positives. With {@link #TRACK_BETWEEN_FRAMES}, rows of the previous
+   * frames count too, for as long as each frame decodes some row. Rows are then decoded one at a
+   * time, even with {@link #PARALLEL_ROWS}. Maps to an {@link Integer}.
+   */
+  ROW_VOTES(Integer.class),
+
   // End of enumeration values.
   ;
 
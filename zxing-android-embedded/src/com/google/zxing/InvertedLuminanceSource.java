@@ -43,9 +43,20 @@ public final class InvertedLuminanceSource extends LuminanceSource {
 
   @Override
   public byte[] getMatrix() {
-    byte[] matrix = delegate.getMatrix();
+    return getMatrix(null);
+  }
+
+  @Override
+  public byte[] getMatrix(byte[] reuse) {
+    byte[] matrix = delegate.getMatrix(reuse);
     int length = getWidth() * getHeight();
-    byte[] invertedMatrix = new byte[length];
+    // The delegate may return its own data, which must not be modified: only write into reuse.
+    byte[] invertedMatrix;
+    if (reuse != null && reuse.length >= length) {
+      invertedMatrix = reuse;
+    } else {
+      invertedMatrix = new byte[length];
+    }
     for (int i = 0; i < length; i++) {
       invertedMatrix[i] = (byte) (255 - (matrix[i] & 0xFF));
     }
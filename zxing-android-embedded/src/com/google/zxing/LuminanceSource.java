@@ -59,6 +59,19 @@ public abstract class LuminanceSource {
    */
   public abstract byte[] getMatrix();
 
+  /**
+   * Fetches luminance data like {@link #getMatrix()}, but copies it into a preallocated array
+   * when a copy is needed, so that callers fetching the matrix of many images can do so without
+   * allocating. The default implementation ignores the array and calls {@link #getMatrix()}.
+   *
+   * @param matrix An optional preallocated array. If null or too small, it will be ignored.
+   *               Always use the returned object, which may also be the underlying data.
+   * @return A row-major 2D array of luminance values, as for {@link #getMatrix()}.
+   */
+  public byte[] getMatrix(byte[] matrix) {
+    return getMatrix();
+  }
+
   /**
    * @return The width of the bitmap.
    */
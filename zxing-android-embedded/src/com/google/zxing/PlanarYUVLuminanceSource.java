@@ -76,6 +76,11 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
 
   @Override
   public byte[] getMatrix() {
+    return getMatrix(null);
+  }
+
+  @Override
+  public byte[] getMatrix(byte[] matrix) {
     int width = getWidth();
     int height = getHeight();
 
@@ -86,7 +91,9 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
     }
 
     int area = width * height;
-    byte[] matrix = new byte[area];
+    if (matrix == null || matrix.length < area) {
+      matrix = new byte[area];
+    }
     int inputOffset = top * dataWidth + left;
 
     // If the width matches the full width of the underlying data, perform a single copy.
@@ -106,6 +113,17 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
 
 //شɫֵyuvʽ
   public byte[] getMatrixWithColor() {
+    return getMatrixWithColor(null);
+  }
+
+  /**
+   * Like {@link #getMatrixWithColor()}, but copies into a preallocated array when a copy is needed.
+   *
+   * @param matrix An optional preallocated array. If null or too small, it will be ignored.
+   *               Always use the returned object, which may also be the underlying data.
+   * @return the luminance followed by the color data of the crop rectangle
+   */
+  public byte[] getMatrixWithColor(byte[] matrix) {
     int width = getWidth();
     int height = getHeight();
 
@@ -116,20 +134,21 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
     }
 
     int area = width * height + width * height / 2;
-    byte[] matrix = new byte[area];
+    if (matrix == null || matrix.length < area) {
+      matrix = new byte[area];
+    }
     int inputOffset = top * dataWidth + left;
 
-    // If the width matches the full width of the underlying data, perform a single copy.
+    // If the width matches the full width of the underlying data, copy the luminance at once.
     if (width == dataWidth) {
-      System.arraycopy(yuvData, inputOffset, width * height, 0, area);
-      return matrix;
-    }
-
-    // Otherwise copy one cropped row at a time.
-    for (int y = 0; y < height; y++) {
-      int outputOffset = y * width;
-      System.arraycopy(yuvData, inputOffset, matrix, outputOffset, width);
-      inputOffset += dataWidth;
+      System.arraycopy(yuvData, inputOffset, matrix, 0, width * height);
+    } else {
+      // Otherwise copy one cropped row at a time.
+      for (int y = 0; y < height; y++) {
+        int outputOffset = y * width;
+        System.arraycopy(yuvData, inputOffset, matrix, outputOffset, width);
+        inputOffset += dataWidth;
+      }
     }
 
     int newtop = (top % 2 == 0) ? (top / 2) : (top / 2 - 1);
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * This object extends LuminanceSource around an array of YUV data returned from the camera driver,
+ * like {@link PlanarYUVLuminanceSource}, but presents the data rotated clockwise by 0, 90, 180
+ * or 270 degrees. The rotation is applied while reading, so no rotated copy of the frame is made:
+ * {@link #getRow(int, byte[])} reads a single row of the crop rectangle and
+ * {@link #getMatrix()} copies only the crop rectangle, in cache-sized blocks when the rotation
+ * turns rows into columns.
+ *
+ * The crop rectangle is expressed in the rotated coordinates.
+ */
+public final class RotatedPlanarYUVLuminanceSource extends LuminanceSource {
+
+  // Side of the square blocks copied at once when transposing, small enough for a block of
+  // source rows and a block of destination rows to stay in the cache together.
+  private static final int BLOCK_SIZE = 32;
+
+  private final byte[] yuvData;
+  // Index in yuvData of pixel (0, 0), and the index steps for x + 1 and y + 1.
+  private final int origin;
+  private final int xStep;
+  private final int yStep;
+
+  /**
+   * @param yuvData the camera data, Y plane first
+   * @param dataWidth width of the data, in natural camera orientation
+   * @param dataHeight height of the data, in natural camera orientation
+   * @param rotation clockwise rotation in degrees to apply to the data: 0, 90, 180 or 270
+   * @param left left of the crop rectangle, after rotation
+   * @param top top of the crop rectangle, after rotation
+   * @param width width of the crop rectangle, after rotation
+   * @param height height of the crop rectangle, after rotation
+   */
+  public RotatedPlanarYUVLuminanceSource(byte[] yuvData,
+                                         int dataWidth,
+                                         int dataHeight,
+                                         int rotation,
+                                         int left,
+                                         int top,
+                                         int width,
+                                         int height) {
+    super(width, height);
+
+    boolean perpendicular = rotation == 90 || rotation == 270;
+    int rotatedWidth = perpendicular ? dataHeight : dataWidth;
+    int rotatedHeight = perpendicular ? dataWidth : dataHeight;
+    if (left < 0 || top < 0 || left + width > rotatedWidth || top + height > rotatedHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+
+    this.yuvData = yuvData;
+    switch (rotation) {
+      case 0:
+        origin = top * dataWidth + left;
+        xStep = 1;
+        yStep = dataWidth;
+        break;
+      case 90:
+        origin = (dataHeight - 1 - left) * dataWidth + top;
+        xStep = -dataWidth;
+        yStep = 1;
+        break;
+      case 180:
+        origin = (dataHeight - 1 - top) * dataWidth + dataWidth - 1 - left;
+        xStep = -1;
+        yStep = -dataWidth;
+        break;
+      case 270:
+        origin = left * dataWidth + dataWidth - 1 - top;
+        xStep = dataWidth;
+        yStep = -1;
+        break;
+      default:
+        throw new IllegalArgumentException("Rotation must be 0, 90, 180 or 270: " + rotation);
+    }
+  }
+
+  private RotatedPlanarYUVLuminanceSource(byte[] yuvData,
+                                          int origin,
+                                          int xStep,
+                                          int yStep,
+                                          int width,
+                                          int height) {
+    super(width, height);
+    this.yuvData = yuvData;
+    this.origin = origin;
+    this.xStep = xStep;
+    this.yStep = yStep;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    getRow(y, row, 0);
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    return getMatrix(null);
+  }
+
+  @Override
+  public byte[] getMatrix(byte[] matrix) {
+    int width = getWidth();
+    int height = getHeight();
+    int area = width * height;
+    if (matrix == null || matrix.length < area) {
+      matrix = new byte[area];
+    }
+
+    if (xStep == 1 || xStep == -1) {
+      // Rows stay rows, copy them one at a time.
+      for (int y = 0; y < height; y++) {
+        getRow(y, matrix, y * width);
+      }
+      return matrix;
+    }
+
+    // Rows become columns. Walking either one in full would touch a new cache line for every
+    // pixel on one side, so transpose one block at a time.
+    byte[] yuv = yuvData;
+    for (int blockY = 0; blockY < height; blockY += BLOCK_SIZE) {
+      int blockBottom = Math.min(blockY + BLOCK_SIZE, height);
+      for (int blockX = 0; blockX < width; blockX += BLOCK_SIZE) {
+        int blockRight = Math.min(blockX + BLOCK_SIZE, width);
+        for (int x = blockX; x < blockRight; x++) {
+          // Down the column of the output is along a row of the input.
+          int inputOffset = origin + x * xStep + blockY * yStep;
+          for (int y = blockY, outputOffset = blockY * width + x; y < blockBottom;
+               y++, outputOffset += width, inputOffset += yStep) {
+            matrix[outputOffset] = yuv[inputOffset];
+          }
+        }
+      }
+    }
+    return matrix;
+  }
+
+  private void getRow(int y, byte[] row, int outputOffset) {
+    int width = getWidth();
+    int inputOffset = origin + y * yStep;
+    if (xStep == 1) {
+      System.arraycopy(yuvData, inputOffset, row, outputOffset, width);
+    } else {
+      for (int x = 0; x < width; x++, inputOffset += xStep) {
+        row[outputOffset + x] = yuvData[inputOffset];
+      }
+    }
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    if (left < 0 || top < 0 || left + width > getWidth() || top + height > getHeight()) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    return new RotatedPlanarYUVLuminanceSource(yuvData,
+                                               origin + left * xStep + top * yStep,
+                                               xStep,
+                                               yStep,
+                                               width,
+                                               height);
+  }
+
+  @Override
+  public boolean isRotateSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource rotateCounterClockwise() {
+    // Pixel (x, y) of the result is pixel (width - 1 - y, x) of this source.
+    return new RotatedPlanarYUVLuminanceSource(yuvData,
+                                               origin + (getWidth() - 1) * xStep,
+                                               yStep,
+                                               -xStep,
+                                               getHeight(),
+                                               getWidth());
+  }
+
+}
@@ -69,6 +69,9 @@ public final class Decoder {
   };
 
   private AztecDetectorResult ddata;
+  // Kept for the next symbol, which most likely uses the same field
+  private ReedSolomonDecoder rsDecoder;
+  private GenericGF rsDecoderField;
 
   public DecoderResult decode(AztecDetectorResult detectorResult) throws FormatException {
     ddata = detectorResult;
@@ -232,8 +235,11 @@ public final class Decoder {
       dataWords[i] = readCode(rawbits, offset, codewordSize);
     }
 
+    if (rsDecoderField != gf) {
+      rsDecoder = new ReedSolomonDecoder(gf);
+      rsDecoderField = gf;
+    }
     try {
-      ReedSolomonDecoder rsDecoder = new ReedSolomonDecoder(gf);
       rsDecoder.decode(dataWords, numCodewords - numDataCodewords);
     } catch (ReedSolomonException ex) {
       throw FormatException.getFormatInstance(ex);
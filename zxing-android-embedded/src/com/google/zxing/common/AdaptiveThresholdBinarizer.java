@@ -0,0 +1,193 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+/**
+ * This Binarizer implements the adaptive mean threshold used by GlobalHistogramBinarizer for
+ * 2D readers, but computes each local mean in constant time from a summed-area table (integral
+ * image) rather than re-reading the window around every pixel. A pixel is black when its
+ * luminance is below the mean of the (2 * radius + 1) pixel square centered on it, minus a
+ * constant offset. Windows are clipped at the image border, and every pixel of the window is
+ * counted instead of every third one.
+ *
+ * 1D readers still get the sharpened per-row histogram approach of the superclass.
+ *
+ * The integral table is kept between frames: binarizers obtained through
+ * {@link #createBinarizer(LuminanceSource)} share the table of the binarizer they were created
+ * from, so callers can keep one instance per decoding thread as a prototype and binarize every
+ * frame without reallocating it. As a consequence, binarizers created from one another must not
+ * be used concurrently.
+ */
+public final class AdaptiveThresholdBinarizer extends GlobalHistogramBinarizer {
+
+  // Matches the 21x21 window and zero offset of the GlobalHistogramBinarizer adaptive threshold.
+  private static final int DEFAULT_RADIUS = 10;
+  private static final int DEFAULT_OFFSET = 0;
+
+  private final int radius;
+  private final int offset;
+  private final IntegralImage integralImage;
+  private BitMatrix matrix;
+
+  public AdaptiveThresholdBinarizer(LuminanceSource source) {
+    this(source, DEFAULT_RADIUS, DEFAULT_OFFSET);
+  }
+
+  /**
+   * @param source luminance data to binarize
+   * @param radius half the side of the square window used for the local mean, excluding the center
+   * @param offset constant subtracted from the local mean before comparing, must be nonnegative
+   */
+  public AdaptiveThresholdBinarizer(LuminanceSource source, int radius, int offset) {
+    this(source, radius, offset, null);
+  }
+
+  /**
+   * @param source luminance data to binarize
+   * @param radius half the side of the square window used for the local mean, excluding the center
+   * @param offset constant subtracted from the local mean before comparing, must be nonnegative
+   * @param executor splits the thresholding of large frames into stripes run in parallel, or null
+   *                 to always binarize on the calling thread
+   */
+  public AdaptiveThresholdBinarizer(LuminanceSource source, int radius, int offset, StripeExecutor executor) {
+    this(source, radius, offset, executor, new IntegralImage());
+  }
+
+  private AdaptiveThresholdBinarizer(LuminanceSource source,
+                                     int radius,
+                                     int offset,
+                                     StripeExecutor executor,
+                                     IntegralImage integralImage) {
+    super(source, executor);
+    if (radius < 1) {
+      throw new IllegalArgumentException("Radius must be at least 1");
+    }
+    if (offset < 0) {
+      throw new IllegalArgumentException("Offset must be nonnegative");
+    }
+    this.radius = radius;
+    this.offset = offset;
+    this.integralImage = integralImage;
+  }
+
+  /**
+   * Calculates the final BitMatrix once for all requests, like HybridBinarizer does.
+   */
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (matrix != null) {
+      return matrix;
+    }
+    LuminanceSource source = getLuminanceSource();
+    final int width = source.getWidth();
+    final int height = source.getHeight();
+    final byte[] luminances = source.getMatrix();
+    // Building the table is a single sequential pass; the thresholding reads it and can be split.
+    final int[] table = integralImage.compute(luminances, width, height);
+
+    final BitMatrix newMatrix = new BitMatrix(width, height);
+    StripeExecutor.execute(getStripeExecutor(), width * height, height, new StripeExecutor.Task() {
+      @Override
+      public void run(int start, int end) {
+        threshold(luminances, table, width, height, start, end, newMatrix);
+      }
+    });
+    matrix = newMatrix;
+    return matrix;
+  }
+
+  /**
+   * Thresholds rows [startY, endY) against the mean of the window around each pixel.
+   */
+  private void threshold(byte[] luminances,
+                         int[] table,
+                         int width,
+                         int height,
+                         int startY,
+                         int endY,
+                         BitMatrix matrix) {
+    int stride = width + 1;
+    for (int y = startY; y < endY; y++) {
+      int top = Math.max(y - radius, 0);
+      int bottom = Math.min(y + radius + 1, height);
+      int topOffset = top * stride;
+      int bottomOffset = bottom * stride;
+      int windowHeight = bottom - top;
+      int inputOffset = y * width;
+      for (int x32 = 0; x32 < width; x32 += 32) {
+        int end = Math.min(x32 + 32, width);
+        int word = 0;
+        for (int x = x32; x < end; x++) {
+          int left = Math.max(x - radius, 0);
+          int right = Math.min(x + radius + 1, width);
+          int sum = table[bottomOffset + right] - table[topOffset + right]
+              - table[bottomOffset + left] + table[topOffset + left];
+          int count = windowHeight * (right - left);
+          // Black when luminance < (sum / count) - offset, that is when this difference is not negative.
+          int difference = sum - ((luminances[inputOffset + x] & 0xFF) + offset + 1) * count;
+          word |= ((difference >>> 31) ^ 1) << (x - x32);
+        }
+        matrix.setBulk(x32, y, word);
+      }
+    }
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new AdaptiveThresholdBinarizer(source, radius, offset, getStripeExecutor(), integralImage);
+  }
+
+  /**
+   * Summed-area table of a luminance image, with an extra leading row and column of zeros so that
+   * the sum over any rectangle takes four lookups and no bounds checks. The backing array only
+   * grows, and is reused for every image computed through the same instance.
+   */
+  private static final class IntegralImage {
+
+    private int[] table = new int[0];
+
+    int[] compute(byte[] luminances, int width, int height) {
+      int stride = width + 1;
+      int size = stride * (height + 1);
+      if (table.length < size) {
+        table = new int[size];
+      }
+      int[] localTable = table;
+      for (int x = 0; x < stride; x++) {
+        localTable[x] = 0;
+      }
+      // Sums of a full frame may exceed Integer.MAX_VALUE for very large images. That is fine:
+      // the window sums are differences of table entries, and the wrap-around cancels out as
+      // long as a single window sum fits in an int.
+      for (int y = 0, inputOffset = 0, outputOffset = stride; y < height;
+           y++, inputOffset += width, outputOffset += stride) {
+        int rowSum = 0;
+        localTable[outputOffset] = 0;
+        for (int x = 0; x < width; x++) {
+          rowSum += luminances[inputOffset + x] & 0xFF;
+          localTable[outputOffset + x + 1] = localTable[outputOffset - stride + x + 1] + rowSum;
+        }
+      }
+      return localTable;
+    }
+  }
+
+}
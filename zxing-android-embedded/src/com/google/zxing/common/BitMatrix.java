@@ -173,6 +173,48 @@ public final class BitMatrix implements Cloneable {
     bits[offset] |= 1 << (x & 0x1f);
   }
 
+  /**
+   * <p>Sets 32 bits of a row at once. Bits already set stay set, as with {@link #set(int, int)}.</p>
+   *
+   * @param x The first column of the word, which must be a multiple of 32
+   * @param y The row
+   * @param newBits The bits to set, the least significant bit being column x. Bits past the width
+   *                of the matrix must be 0.
+   */
+  public void setBulk(int x, int y, int newBits) {
+    bits[y * rowSize + (x >> 5)] |= newBits;
+  }
+
+  /**
+   * <p>Sets every bit of a row whose luminance is at or below the threshold for its column,
+   * building each 32 bit word in a register and writing it once.</p>
+   *
+   * @param y The row
+   * @param luminances Luminance data, where {@code luminances[offset + x] & 0xff} is column x
+   * @param offset The index of the first column of the row in luminances
+   * @param thresholds Threshold for each column, at least as long as the width of the matrix
+   */
+  public void setRowAtOrBelow(int y, byte[] luminances, int offset, int[] thresholds) {
+    int rowOffset = y * rowSize;
+    int fullWords = width >> 5;
+    int x = 0;
+    for (int x32 = 0; x32 < fullWords; x32++) {
+      int word = 0;
+      for (int bit = 0; bit < 32; bit++, x++) {
+        // The sign bit of (threshold - luminance) is clear exactly when luminance <= threshold.
+        word |= (((thresholds[x] - (luminances[offset + x] & 0xff)) >>> 31) ^ 1) << bit;
+      }
+      bits[rowOffset + x32] |= word;
+    }
+    if (x < width) {
+      int word = 0;
+      for (int bit = 0; x < width; bit++, x++) {
+        word |= (((thresholds[x] - (luminances[offset + x] & 0xff)) >>> 31) ^ 1) << bit;
+      }
+      bits[rowOffset + fullWords] |= word;
+    }
+  }
+
   public void unset(int x, int y) {
     int offset = y * rowSize + (x / 32);
     bits[offset] &= ~(1 << (x & 0x1f));
@@ -295,6 +337,135 @@ public final class BitMatrix implements Cloneable {
     }
   }
 
+  /**
+   * Copies a rectangular region of this matrix into a new {@code BitMatrix}, a word at a time.
+   *
+   * @param left The horizontal position to begin at (inclusive)
+   * @param top The vertical position to begin at (inclusive)
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return A new matrix holding the region, with the origin at its top-left corner
+   */
+  public BitMatrix crop(int left, int top, int width, int height) {
+    if (top < 0 || left < 0) {
+      throw new IllegalArgumentException("Left and top must be nonnegative");
+    }
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Height and width must be at least 1");
+    }
+    if (top + height > this.height || left + width > this.width) {
+      throw new IllegalArgumentException("The region must fit inside the matrix");
+    }
+    BitMatrix result = new BitMatrix(width, height);
+    int resultRowSize = result.rowSize;
+    int shift = left & 0x1f;
+    int lastMask = (width & 0x1f) == 0 ? -1 : (1 << (width & 0x1f)) - 1;
+    for (int y = 0; y < height; y++) {
+      int inputOffset = (top + y) * rowSize + (left >>> 5);
+      int inputEnd = (top + y + 1) * rowSize;
+      int outputOffset = y * resultRowSize;
+      for (int x = 0; x < resultRowSize; x++) {
+        int word = bits[inputOffset + x] >>> shift;
+        if (shift != 0 && inputOffset + x + 1 < inputEnd) {
+          word |= bits[inputOffset + x + 1] << (32 - shift);
+        }
+        result.bits[outputOffset + x] = word;
+      }
+      result.bits[outputOffset + resultRowSize - 1] &= lastMask;
+    }
+    return result;
+  }
+
+  /**
+   * Returns a copy of this matrix rotated by 90 degrees counterclockwise, using the same
+   * orientation as {@link com.google.zxing.LuminanceSource#rotateCounterClockwise()}.
+   * Only set bits are visited.
+   *
+   * @return A new matrix, {@code height} wide and {@code width} high
+   */
+  public BitMatrix rotateCounterClockwise() {
+    BitMatrix result = new BitMatrix(height, width);
+    for (int y = 0; y < height; y++) {
+      int offset = y * rowSize;
+      for (int x32 = 0; x32 < rowSize; x32++) {
+        int theBits = bits[offset + x32];
+        while (theBits != 0) {
+          int x = (x32 << 5) + Integer.numberOfTrailingZeros(theBits);
+          result.set(y, width - 1 - x);
+          theBits &= theBits - 1;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a copy of this matrix reduced by the given factor in each direction, keeping the
+   * center bit of each {@code factor} by {@code factor} block. A run of at least {@code factor}
+   * bits is never dropped, so the copy is good enough to locate large patterns cheaply before
+   * measuring them in this matrix. Factors 2 and 4 pack whole words at a time.
+   *
+   * @param factor The reduction in each direction, at least 1
+   * @return A new matrix, {@code width / factor} wide and {@code height / factor} high
+   */
+  public BitMatrix downsample(int factor) {
+    if (factor < 1) {
+      throw new IllegalArgumentException("Factor must be at least 1");
+    }
+    int resultWidth = width / factor;
+    int resultHeight = height / factor;
+    if (resultWidth < 1 || resultHeight < 1) {
+      throw new IllegalArgumentException("Factor must not exceed the width and height");
+    }
+    BitMatrix result = new BitMatrix(resultWidth, resultHeight);
+    int resultRowSize = result.rowSize;
+    int half = factor / 2;
+    int lastMask = (resultWidth & 0x1f) == 0 ? -1 : (1 << (resultWidth & 0x1f)) - 1;
+    for (int y = 0; y < resultHeight; y++) {
+      int inputOffset = (y * factor + half) * rowSize;
+      int outputOffset = y * resultRowSize;
+      if (factor == 2 || factor == 4) {
+        // Each input word gives 32 / factor bits of the output word
+        int bitsPerWord = 32 / factor;
+        for (int x = 0, inputX = 0; x < resultRowSize; x++) {
+          int word = 0;
+          for (int shift = 0; shift < 32 && inputX < rowSize; shift += bitsPerWord, inputX++) {
+            word |= packEvery(bits[inputOffset + inputX] >>> half, factor) << shift;
+          }
+          result.bits[outputOffset + x] = word;
+        }
+        result.bits[outputOffset + resultRowSize - 1] &= lastMask;
+      } else {
+        for (int x32 = 0; x32 < resultWidth; x32 += 32) {
+          int end = Math.min(x32 + 32, resultWidth);
+          int word = 0;
+          for (int x = x32, inputX = x32 * factor + half; x < end; x++, inputX += factor) {
+            word |= ((bits[inputOffset + (inputX >>> 5)] >>> (inputX & 0x1f)) & 1) << (x - x32);
+          }
+          result.bits[outputOffset + (x32 >>> 5)] = word;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Packs bits 0, factor, 2 * factor... of a word into its low 32 / factor bits.
+   */
+  private static int packEvery(int word, int factor) {
+    if (factor == 2) {
+      word &= 0x55555555;
+      word = (word | (word >>> 1)) & 0x33333333;
+      word = (word | (word >>> 2)) & 0x0f0f0f0f;
+      word = (word | (word >>> 4)) & 0x00ff00ff;
+      return (word | (word >>> 8)) & 0x0000ffff;
+    }
+    word &= 0x11111111;
+    word = (word | (word >>> 3)) & 0x03030303;
+    word = (word | (word >>> 6)) & 0x000f000f;
+    return (word | (word >>> 12)) & 0x000000ff;
+  }
+
   /**
    * This is useful in detecting the enclosing rectangle of a 'pure' barcode.
    *
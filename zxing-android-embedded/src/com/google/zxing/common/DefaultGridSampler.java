@@ -51,38 +51,77 @@ public final class DefaultGridSampler extends GridSampler {
     if (dimensionX <= 0 || dimensionY <= 0) {
       throw NotFoundException.getNotFoundInstance();
     }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    double a11 = transform.a11;
+    double a12 = transform.a12;
+    double a13 = transform.a13;
     BitMatrix bits = new BitMatrix(dimensionX, dimensionY);
-    float[] points = new float[2 * dimensionX];
     for (int y = 0; y < dimensionY; y++) {
-      int max = points.length;
-      float iValue = y + 0.5f;
-      for (int x = 0; x < max; x += 2) {
-        points[x] = (float) (x / 2) + 0.5f;
-        points[x + 1] = iValue;
+      double iValue = y + 0.5;
+      // Along a row the numerators and the denominator of the transform are linear, so they
+      // advance by a constant step from one sample to the next. Doubles keep the accumulated
+      // rounding error far below that of transforming each point in floats.
+      double xNumerator = a11 * 0.5 + transform.a21 * iValue + transform.a31;
+      double yNumerator = a12 * 0.5 + transform.a22 * iValue + transform.a32;
+      double denominator = a13 * 0.5 + transform.a23 * iValue + transform.a33;
+      int lastStep = dimensionX - 1;
+      double lastDenominator = denominator + a13 * lastStep;
+      // If the denominator keeps its sign, the row maps to the segment between its end points,
+      // and every sample is in the image if they are. Otherwise the finder patterns were probably
+      // misidentified, and the transform is "twisted" along the row.
+      if (denominator == 0.0 || lastDenominator == 0.0 || (denominator > 0.0) != (lastDenominator > 0.0)) {
+        throw NotFoundException.getNotFoundInstance();
+      }
+      double firstX = xNumerator / denominator;
+      double firstY = yNumerator / denominator;
+      double lastX = (xNumerator + a11 * lastStep) / lastDenominator;
+      double lastY = (yNumerator + a12 * lastStep) / lastDenominator;
+      if (!isNearImage(firstX, firstY, width, height) || !isNearImage(lastX, lastY, width, height)) {
+        throw NotFoundException.getNotFoundInstance();
       }
-      transform.transformPoints(points);
-      // Quick check to see if points transformed to something inside the image;
-      // sufficient to check the endpoints
-      checkAndNudgePoints(image, points);
-      try {
-        for (int x = 0; x < max; x += 2) {
-          if (image.get((int) points[x], (int) points[x + 1])) {
+      // Samples of rows ending less than a pixel away from the border are nudged back in
+      boolean nudge = !isInImage(firstX, firstY, width, height) || !isInImage(lastX, lastY, width, height);
+
+      for (int x32 = 0; x32 < dimensionX; x32 += 32) {
+        int end = Math.min(x32 + 32, dimensionX);
+        int word = 0;
+        for (int x = x32; x < end; x++) {
+          double scale = 1.0 / denominator;
+          int imageX = (int) (xNumerator * scale);
+          int imageY = (int) (yNumerator * scale);
+          if (nudge) {
+            imageX = Math.min(Math.max(imageX, 0), width - 1);
+            imageY = Math.min(Math.max(imageY, 0), height - 1);
+          }
+          if (image.get(imageX, imageY)) {
             // Black(-ish) pixel
-            bits.set(x / 2, y);
+            word |= 1 << (x - x32);
           }
+          xNumerator += a11;
+          yNumerator += a12;
+          denominator += a13;
         }
-      } catch (ArrayIndexOutOfBoundsException aioobe) {
-        // This feels wrong, but, sometimes if the finder patterns are misidentified, the resulting
-        // transform gets "twisted" such that it maps a straight line of points to a set of points
-        // whose endpoints are in bounds, but others are not. There is probably some mathematical
-        // way to detect this about the transformation that I don't know yet.
-        // This results in an ugly runtime exception despite our clever checks above -- can't have
-        // that. We could check each point's coordinates but that feels duplicative. We settle for
-        // catching and wrapping ArrayIndexOutOfBoundsException.
-        throw NotFoundException.getNotFoundInstance();
+        bits.setBulk(x32, y, word);
       }
     }
     return bits;
   }
 
+  /**
+   * @return true if the point is at most a pixel off the image, as tolerated by
+   *         {@link GridSampler#checkAndNudgePoints(BitMatrix, float[])}
+   */
+  private static boolean isNearImage(double x, double y, int width, int height) {
+    return x > -2.0 && x < width + 1 && y > -2.0 && y < height + 1;
+  }
+
+  /**
+   * @return true if the point is in the image, with a pixel to spare on the right and bottom for
+   *         rounding along the row
+   */
+  private static boolean isInImage(double x, double y, int width, int height) {
+    return x >= 0.0 && x < width - 1 && y >= 0.0 && y < height - 1;
+  }
+
 }
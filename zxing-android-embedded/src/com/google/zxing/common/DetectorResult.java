@@ -29,10 +29,16 @@ public class DetectorResult {
 
   private final BitMatrix bits;
   private final ResultPoint[] points;
+  private final byte[] confidence;
 
   public DetectorResult(BitMatrix bits, ResultPoint[] points) {
+    this(bits, points, null);
+  }
+
+  public DetectorResult(BitMatrix bits, ResultPoint[] points, byte[] confidence) {
     this.bits = bits;
     this.points = points;
+    this.confidence = confidence;
   }
 
   public final BitMatrix getBits() {
@@ -43,4 +49,13 @@ public class DetectorResult {
     return points;
   }
 
+  /**
+   * @return how sure the detector is of each bit, row by row, as unsigned bytes from 0 (a guess)
+   *  to 255; or null if it did not measure it
+   * @see LuminanceGridSampler
+   */
+  public final byte[] getConfidence() {
+    return confidence;
+  }
+
 }
\ No newline at end of file
@@ -16,8 +16,6 @@
 
 package com.google.zxing.common;
 
-import android.util.Log;
-
 import com.google.zxing.Binarizer;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.NotFoundException;
@@ -42,11 +40,27 @@ public class GlobalHistogramBinarizer extends Binarizer {
 
     private byte[] luminances;
     private final int[] buckets;
+    private final StripeExecutor executor;
+    private BitMatrix matrix;
 
     public GlobalHistogramBinarizer(LuminanceSource source) {
+        this(source, null);
+    }
+
+    /**
+     * @param source luminance data to binarize
+     * @param executor splits large frames into stripes binarized in parallel, or null to always
+     *                 binarize on the calling thread
+     */
+    public GlobalHistogramBinarizer(LuminanceSource source, StripeExecutor executor) {
         super(source);
         luminances = EMPTY;
         buckets = new int[LUMINANCE_BUCKETS];
+        this.executor = executor;
+    }
+
+    final StripeExecutor getStripeExecutor() {
+        return executor;
     }
 
     // Applies simple sharpening to the row data to improve performance of the 1D Readers.
@@ -133,12 +147,16 @@ public class GlobalHistogramBinarizer extends Binarizer {
 //  }
 
     //chyl411 add
+    // The adaptive threshold below is expensive, so the matrix is calculated once for all requests.
     @Override
     public BitMatrix getBlackMatrix() throws NotFoundException {
+        if (matrix != null) {
+            return matrix;
+        }
         LuminanceSource source = getLuminanceSource();
-        int width = source.getWidth();
-        int height = source.getHeight();
-        BitMatrix matrix = new BitMatrix(width, height);
+        final int width = source.getWidth();
+        final int height = source.getHeight();
+        final BitMatrix matrix = new BitMatrix(width, height);
 
 
         // Quickly calculates the histogram by sampling four rows from the image. This proved to be
@@ -146,7 +164,6 @@ public class GlobalHistogramBinarizer extends Binarizer {
         initArrays(width);
 
 
-        Log.i("chyl411", "startedddd..." + System.currentTimeMillis());
         //chyl411 add -------------------------先增加图片的对比度，算法见https://www.codeproject.com/Tips/1172662/Histogram-Equalisation-in-Java
         //增加对比度，目前没什么效果 start
 //        int totpix = width * height;
@@ -228,48 +245,14 @@ public class GlobalHistogramBinarizer extends Binarizer {
 //        }
 
         //修改过的自适应阀值二值化算法，目前看效果不错
-        int sum_luminances, mean, count;
-        int maskSize = 10;
-        int C = 0;
-
-        byte[] localLuminances = source.getMatrix();
-        /** find mean and threshold the pixel */
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                sum_luminances = 0;
-                count = 0;
-
-                int currentOffset = y * width;
-                //当前点灰度值
-                int currentLuminance = localLuminances[currentOffset + x] & 0xff;
-
-                for (int r = y - maskSize; r <= y + maskSize; r += 3) {
-                    for (int c = x - maskSize; c <= x + maskSize; c += 3) {
-                        if (r < 0 || r >= height || c < 0 || c >= width) {
-                            /** Some portion of the mask is outside the image. */
-                            continue;
-                        } else {
-                            try {
-                                int offset = r * width;
-                                //adaptive threshold - mean
-                                int tmp = localLuminances[offset + c] & 0xff;
-                                sum_luminances += (tmp & 0xff);
-                                count++;
-                            } catch (ArrayIndexOutOfBoundsException e) {
-                                e.printStackTrace();
-                            }
-                        }
-                    }
-                }
-
-                /** get mean pixel value */
-                mean = (int) ((sum_luminances / count) - C);
-
-                if (currentLuminance < (mean & 0xff)) {
-                    matrix.set(x, y);
-                }
+        // Every row only reads luminances and writes its own words, so rows are split into stripes.
+        final byte[] localLuminances = source.getMatrix();
+        StripeExecutor.execute(executor, width * height, height, new StripeExecutor.Task() {
+            @Override
+            public void run(int start, int end) {
+                adaptiveThreshold(localLuminances, width, height, start, end, matrix);
             }
-        }
+        });
         //end----------- 旧的自适应阀值化，感觉处理阴影效果还可以，明亮状态下会出现很多杂点，修改过的还行
 
         //chyl411 add start --------------------------一维梯度增量法
@@ -331,12 +314,62 @@ public class GlobalHistogramBinarizer extends Binarizer {
 //            }
 //        }
         //chyl411 add end --------------------------一维梯度增量法
+        this.matrix = matrix;
         return matrix;
     }
 
+    // Thresholds rows [top, bottom) against a sampled local mean. The thresholds of a row are
+    // gathered first, then the row is packed into the matrix a word at a time.
+    private static void adaptiveThreshold(byte[] localLuminances,
+                                          int width,
+                                          int height,
+                                          int top,
+                                          int bottom,
+                                          BitMatrix matrix) {
+        int sum_luminances, mean, count;
+        int maskSize = 10;
+        int C = 0;
+        int[] thresholds = new int[width];
+
+        /** find mean and threshold the pixel */
+        for (int y = top; y < bottom; y++) {
+            for (int x = 0; x < width; x++) {
+                sum_luminances = 0;
+                count = 0;
+
+                // Only the part of the mask inside the image is sampled.
+                int firstRow = y - maskSize;
+                if (firstRow < 0) {
+                    firstRow += (2 - firstRow) / 3 * 3;
+                }
+                int firstColumn = x - maskSize;
+                if (firstColumn < 0) {
+                    firstColumn += (2 - firstColumn) / 3 * 3;
+                }
+                int lastRow = Math.min(y + maskSize, height - 1);
+                int lastColumn = Math.min(x + maskSize, width - 1);
+                for (int r = firstRow; r <= lastRow; r += 3) {
+                    int offset = r * width;
+                    for (int c = firstColumn; c <= lastColumn; c += 3) {
+                        //adaptive threshold - mean
+                        sum_luminances += localLuminances[offset + c] & 0xff;
+                        count++;
+                    }
+                }
+
+                /** get mean pixel value */
+                mean = (int) ((sum_luminances / count) - C);
+
+                // currentLuminance < mean is the same as currentLuminance <= mean - 1
+                thresholds[x] = (mean & 0xff) - 1;
+            }
+            matrix.setRowAtOrBelow(y, localLuminances, y * width, thresholds);
+        }
+    }
+
     @Override
     public Binarizer createBinarizer(LuminanceSource source) {
-        return new GlobalHistogramBinarizer(source);
+        return new GlobalHistogramBinarizer(source, executor);
     }
 
     private void initArrays(int luminanceSize) {
@@ -53,6 +53,15 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     super(source);
   }
 
+  /**
+   * @param source luminance data to binarize
+   * @param executor splits large frames into stripes of blocks binarized in parallel, or null to
+   *                 always binarize on the calling thread
+   */
+  public HybridBinarizer(LuminanceSource source, StripeExecutor executor) {
+    super(source, executor);
+  }
+
   /**
    * Calculates the final BitMatrix once for all requests. This could be called once from the
    * constructor instead, but there are some advantages to doing it lazily, such as making
@@ -64,22 +73,43 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
       return matrix;
     }
     LuminanceSource source = getLuminanceSource();
-    int width = source.getWidth();
-    int height = source.getHeight();
+    final int width = source.getWidth();
+    final int height = source.getHeight();
     if (width >= MINIMUM_DIMENSION && height >= MINIMUM_DIMENSION) {
-      byte[] luminances = source.getMatrix();
-      int subWidth = width >> BLOCK_SIZE_POWER;
+      final byte[] luminances = source.getMatrix();
+      int blockColumns = width >> BLOCK_SIZE_POWER;
       if ((width & BLOCK_SIZE_MASK) != 0) {
-        subWidth++;
+        blockColumns++;
       }
-      int subHeight = height >> BLOCK_SIZE_POWER;
+      int blockRows = height >> BLOCK_SIZE_POWER;
       if ((height & BLOCK_SIZE_MASK) != 0) {
-        subHeight++;
+        blockRows++;
       }
-      int[][] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
+      final int subWidth = blockColumns;
+      final int subHeight = blockRows;
+      StripeExecutor executor = getStripeExecutor();
+      int area = width * height;
 
-      BitMatrix newMatrix = new BitMatrix(width, height);
-      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, newMatrix);
+      final int[][] blackPoints = new int[subHeight][subWidth];
+      StripeExecutor.execute(executor, area, subHeight, new StripeExecutor.Task() {
+        @Override
+        public void run(int start, int end) {
+          calculateBlackPoints(luminances, subWidth, start, end, width, height, blackPoints);
+        }
+      });
+      correctLowContrastBlackPoints(blackPoints, subWidth, subHeight);
+
+      final BitMatrix newMatrix = new BitMatrix(width, height);
+      // When the height is not a multiple of the block size, the last row of blocks is moved up and
+      // overlaps the one before it. Keep both in the same stripe so no word is written by two threads.
+      final int stripeRows = (height & BLOCK_SIZE_MASK) != 0 ? subHeight - 1 : subHeight;
+      StripeExecutor.execute(executor, area, stripeRows, new StripeExecutor.Task() {
+        @Override
+        public void run(int start, int end) {
+          calculateThresholdForBlock(luminances, subWidth, subHeight, start, end == stripeRows ? subHeight : end,
+                                     width, height, blackPoints, newMatrix);
+        }
+      });
       matrix = newMatrix;
     } else {
       // If the image is too small, fall back to the global histogram approach.
@@ -94,20 +124,24 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
   }
 
   /**
-   * For each block in the image, calculate the average black point using a 5x5 grid
-   * of the blocks around it. Also handles the corner cases (fractional blocks are computed based
-   * on the last pixels in the row/column which are also used in the previous block).
+   * For each block in rows of blocks [startY, endY), calculate the average black point using a 5x5
+   * grid of the blocks around it. Also handles the corner cases (fractional blocks are computed based
+   * on the last pixels in the row/column which are also used in the previous block). The thresholds
+   * of a whole row of blocks are gathered per column, so that each pixel row is packed in one pass.
    */
   private static void calculateThresholdForBlock(byte[] luminances,
                                                  int subWidth,
                                                  int subHeight,
+                                                 int startY,
+                                                 int endY,
                                                  int width,
                                                  int height,
                                                  int[][] blackPoints,
                                                  BitMatrix matrix) {
     int maxYOffset = height - BLOCK_SIZE;
     int maxXOffset = width - BLOCK_SIZE;
-    for (int y = 0; y < subHeight; y++) {
+    int[] thresholds = new int[width];
+    for (int y = startY; y < endY; y++) {
       int yoffset = y << BLOCK_SIZE_POWER;
       if (yoffset > maxYOffset) {
         yoffset = maxYOffset;
@@ -115,7 +149,9 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
       int top = cap(y, 2, subHeight - 3);
       for (int x = 0; x < subWidth; x++) {
         int xoffset = x << BLOCK_SIZE_POWER;
+        int overlap = 0;
         if (xoffset > maxXOffset) {
+          overlap = xoffset - maxXOffset;
           xoffset = maxXOffset;
         }
         int left = cap(x, 2, subWidth - 3);
@@ -125,8 +161,15 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
           sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] + blackRow[left + 2];
         }
         int average = sum / 25;
-        thresholdBlock(luminances, xoffset, yoffset, average, width, matrix);
+        // A pixel covered by two blocks is black if it passes either threshold, i.e. the larger one.
+        for (int xx = 0; xx < overlap; xx++) {
+          thresholds[xoffset + xx] = Math.max(thresholds[xoffset + xx], average);
+        }
+        for (int xx = overlap; xx < BLOCK_SIZE; xx++) {
+          thresholds[xoffset + xx] = average;
+        }
       }
+      thresholdBlockRow(luminances, yoffset, thresholds, width, matrix);
     }
   }
 
@@ -135,38 +178,36 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
   }
 
   /**
-   * Applies a single threshold to a block of pixels.
+   * Applies the per-column thresholds of a row of blocks to its pixels, a word at a time.
+   * Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
    */
-  private static void thresholdBlock(byte[] luminances,
-                                     int xoffset,
-                                     int yoffset,
-                                     int threshold,
-                                     int stride,
-                                     BitMatrix matrix) {
-    for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
-      for (int x = 0; x < BLOCK_SIZE; x++) {
-        // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
-        if ((luminances[offset + x] & 0xFF) <= threshold) {
-          matrix.set(xoffset + x, yoffset + y);
-        }
-      }
+  private static void thresholdBlockRow(byte[] luminances,
+                                        int yoffset,
+                                        int[] thresholds,
+                                        int stride,
+                                        BitMatrix matrix) {
+    for (int y = 0, offset = yoffset * stride; y < BLOCK_SIZE; y++, offset += stride) {
+      matrix.setRowAtOrBelow(yoffset + y, luminances, offset, thresholds);
     }
   }
 
   /**
-   * Calculates a single black point for each block of pixels and saves it away.
+   * Calculates a single black point for each block of pixels in rows of blocks [startY, endY) and
+   * saves it away. Blocks with too little contrast are stored as the complement of their minimum,
+   * to be resolved by correctLowContrastBlackPoints() once all rows are known.
    * See the following thread for a discussion of this algorithm:
    *  http://groups.google.com/group/zxing/browse_thread/thread/d06efa2c35a7ddc0
    */
-  private static int[][] calculateBlackPoints(byte[] luminances,
-                                              int subWidth,
-                                              int subHeight,
-                                              int width,
-                                              int height) {
+  private static void calculateBlackPoints(byte[] luminances,
+                                           int subWidth,
+                                           int startY,
+                                           int endY,
+                                           int width,
+                                           int height,
+                                           int[][] blackPoints) {
     int maxYOffset = height - BLOCK_SIZE;
     int maxXOffset = width - BLOCK_SIZE;
-    int[][] blackPoints = new int[subHeight][subWidth];
-    for (int y = 0; y < subHeight; y++) {
+    for (int y = startY; y < endY; y++) {
       int yoffset = y << BLOCK_SIZE_POWER;
       if (yoffset > maxYOffset) {
         yoffset = maxYOffset;
@@ -202,36 +243,53 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
           }
         }
 
-        // The default estimate is the average of the values in the block.
-        int average = sum >> (BLOCK_SIZE_POWER * 2);
         if (max - min <= MIN_DYNAMIC_RANGE) {
-          // If variation within the block is low, assume this is a block with only light or only
-          // dark pixels. In that case we do not want to use the average, as it would divide this
-          // low contrast area into black and white pixels, essentially creating data out of noise.
-          //
-          // The default assumption is that the block is light/background. Since no estimate for
-          // the level of dark pixels exists locally, use half the min for the block.
-          average = min / 2;
-
-          if (y > 0 && x > 0) {
-            // Correct the "white background" assumption for blocks that have neighbors by comparing
-            // the pixels in this block to the previously calculated black points. This is based on
-            // the fact that dark barcode symbology is always surrounded by some amount of light
-            // background for which reasonable black point estimates were made. The bp estimated at
-            // the boundaries is used for the interior.
-
-            // The (min < bp) is arbitrary but works better than other heuristics that were tried.
-            int averageNeighborBlackPoint =
-                (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
-            if (min < averageNeighborBlackPoint) {
-              average = averageNeighborBlackPoint;
-            }
+          blackPoints[y][x] = ~min;
+        } else {
+          // The default estimate is the average of the values in the block.
+          blackPoints[y][x] = sum >> (BLOCK_SIZE_POWER * 2);
+        }
+      }
+    }
+  }
+
+  /**
+   * Replaces the placeholders left by calculateBlackPoints() for low contrast blocks. This has to
+   * run in order over the whole image, since each block depends on its corrected neighbors above
+   * and to the left.
+   */
+  private static void correctLowContrastBlackPoints(int[][] blackPoints, int subWidth, int subHeight) {
+    for (int y = 0; y < subHeight; y++) {
+      for (int x = 0; x < subWidth; x++) {
+        if (blackPoints[y][x] >= 0) {
+          continue;
+        }
+        int min = ~blackPoints[y][x];
+        // If variation within the block is low, assume this is a block with only light or only
+        // dark pixels. In that case we do not want to use the average, as it would divide this
+        // low contrast area into black and white pixels, essentially creating data out of noise.
+        //
+        // The default assumption is that the block is light/background. Since no estimate for
+        // the level of dark pixels exists locally, use half the min for the block.
+        int average = min / 2;
+
+        if (y > 0 && x > 0) {
+          // Correct the "white background" assumption for blocks that have neighbors by comparing
+          // the pixels in this block to the previously calculated black points. This is based on
+          // the fact that dark barcode symbology is always surrounded by some amount of light
+          // background for which reasonable black point estimates were made. The bp estimated at
+          // the boundaries is used for the interior.
+
+          // The (min < bp) is arbitrary but works better than other heuristics that were tried.
+          int averageNeighborBlackPoint =
+              (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+          if (min < averageNeighborBlackPoint) {
+            average = averageNeighborBlackPoint;
           }
         }
         blackPoints[y][x] = average;
       }
     }
-    return blackPoints;
   }
 
 }
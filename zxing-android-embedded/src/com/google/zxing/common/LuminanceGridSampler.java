@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+
+/**
+ * <p>Samples a grid of modules from the luminance of an image rather than from its
+ * {@link BitMatrix}. Where {@link DefaultGridSampler} reads the one binarized pixel under the
+ * center of each module, this reads nine points spread over the middle of the module and weighs
+ * them into a mean luminance, so that one pixel of noise or a slightly defocused edge does not
+ * decide the module alone.</p>
+ *
+ * <p>Each module is then thresholded halfway between the darkest and the lightest modules around
+ * it, which follows uneven lighting across the symbol, and given a confidence: how far its
+ * luminance is from that threshold, relative to the contrast around it.</p>
+ *
+ * @see com.google.zxing.DecodeHintType#SUPERSAMPLE_MODULES
+ */
+public final class LuminanceGridSampler {
+
+  // Modules on each side of a module whose darkest and lightest set its threshold
+  private static final int THRESHOLD_RADIUS = 3;
+  // The same, where all the modules within THRESHOLD_RADIUS look alike
+  private static final int WIDE_THRESHOLD_RADIUS = 8;
+  // Weights of the samples at a quarter, half and three quarters of a module, in each direction.
+  // They add up to 4, so that a module adds up to 16 times its mean luminance.
+  private static final int[] SAMPLE_WEIGHTS = {1, 2, 1};
+
+  private final LuminanceSource source;
+  private byte[] luminances;
+
+  public LuminanceGridSampler(LuminanceSource source) {
+    this.source = source;
+  }
+
+  /**
+   * @param dimensionX width of the grid, in modules
+   * @param dimensionY height of the grid, in modules
+   * @param transform maps module coordinates to image coordinates, as for
+   *  {@link GridSampler#sampleGrid(BitMatrix, int, int, PerspectiveTransform)}
+   * @param confidence optional array of at least dimensionX * dimensionY elements, filled row by
+   *  row with the confidence of each module, unsigned, from 0 for a module right at its threshold
+   *  to 255 for a module as dark or as light as the darkest or lightest around it
+   * @return the modules, set where dark
+   * @throws NotFoundException if the grid does not map into the image
+   */
+  public BitMatrix sampleGrid(int dimensionX,
+                              int dimensionY,
+                              PerspectiveTransform transform,
+                              byte[] confidence) throws NotFoundException {
+    if (dimensionX <= 0 || dimensionY <= 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    int[] sums = new int[dimensionX * dimensionY];
+    sampleModules(sums, dimensionX, 0, 0, dimensionX, dimensionY, transform);
+    return threshold(sums, dimensionX, dimensionY, confidence);
+  }
+
+  /**
+   * Like {@link #sampleGrid(int, int, PerspectiveTransform, byte[])}, but with a transform for
+   * each cell of the grid, for symbols which one transform does not map well. The modules are
+   * thresholded together, across the cells.
+   *
+   * @param dimensionX width of the grid, in modules
+   * @param dimensionY height of the grid, in modules
+   * @param columnBounds first column of each column of cells, followed by dimensionX
+   * @param rowBounds first row of each row of cells, followed by dimensionY
+   * @param transforms transform of each cell, row by row, mapping module coordinates from the top
+   *  left of the cell to image coordinates
+   * @param confidence as for {@link #sampleGrid(int, int, PerspectiveTransform, byte[])}
+   * @return the modules, set where dark
+   * @throws NotFoundException if the grid does not map into the image
+   */
+  public BitMatrix sampleGrid(int dimensionX,
+                              int dimensionY,
+                              int[] columnBounds,
+                              int[] rowBounds,
+                              PerspectiveTransform[] transforms,
+                              byte[] confidence) throws NotFoundException {
+    if (dimensionX <= 0 || dimensionY <= 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    int[] sums = new int[dimensionX * dimensionY];
+    int cellsX = columnBounds.length - 1;
+    for (int cellY = 0; cellY < rowBounds.length - 1; cellY++) {
+      for (int cellX = 0; cellX < cellsX; cellX++) {
+        int left = columnBounds[cellX];
+        int top = rowBounds[cellY];
+        sampleModules(sums, dimensionX, left, top, columnBounds[cellX + 1] - left, rowBounds[cellY + 1] - top,
+            transforms[cellY * cellsX + cellX]);
+      }
+    }
+    return threshold(sums, dimensionX, dimensionY, confidence);
+  }
+
+  /**
+   * Decides each module from its sum, and works out its confidence.
+   */
+  private static BitMatrix threshold(int[] sums, int dimensionX, int dimensionY, byte[] confidence) {
+    int globalMin = Integer.MAX_VALUE;
+    int globalMax = 0;
+    for (int sum : sums) {
+      globalMin = Math.min(globalMin, sum);
+      globalMax = Math.max(globalMax, sum);
+    }
+    int globalContrast = globalMax - globalMin;
+    int[] min = new int[sums.length];
+    int[] max = new int[sums.length];
+    findRange(sums, dimensionX, dimensionY, THRESHOLD_RADIUS, min, max);
+    int[] wideMin = null;
+    int[] wideMax = null;
+
+    BitMatrix bits = new BitMatrix(dimensionX, dimensionY);
+    for (int y = 0; y < dimensionY; y++) {
+      for (int x = 0; x < dimensionX; x++) {
+        int offset = y * dimensionX + x;
+        int low = min[offset];
+        int high = max[offset];
+        if ((high - low) * 4 < globalContrast) {
+          // All the modules around are alike, and their range tells nothing about what is dark.
+          // Look further, and then at the whole grid.
+          if (wideMin == null) {
+            wideMin = new int[sums.length];
+            wideMax = new int[sums.length];
+            findRange(sums, dimensionX, dimensionY, WIDE_THRESHOLD_RADIUS, wideMin, wideMax);
+          }
+          low = wideMin[offset];
+          high = wideMax[offset];
+          if ((high - low) * 4 < globalContrast) {
+            low = globalMin;
+            high = globalMax;
+          }
+        }
+        // Compare with twice the sum, to keep the threshold an integer
+        int distance = 2 * sums[offset] - (low + high);
+        if (distance < 0) {
+          bits.set(x, y);
+        }
+        if (confidence != null) {
+          int contrast = high - low;
+          confidence[offset] = (byte) (contrast == 0 ? 0 : Math.min(Math.abs(distance) * 255 / contrast, 255));
+        }
+      }
+    }
+    return bits;
+  }
+
+  /**
+   * Finds the darkest and the lightest module within radius of each module, along rows first and
+   * then down the columns.
+   */
+  private static void findRange(int[] sums, int dimensionX, int dimensionY, int radius, int[] min, int[] max) {
+    int[] rowMin = new int[sums.length];
+    int[] rowMax = new int[sums.length];
+    for (int y = 0; y < dimensionY; y++) {
+      int offset = y * dimensionX;
+      for (int x = 0; x < dimensionX; x++) {
+        int low = Integer.MAX_VALUE;
+        int high = 0;
+        for (int i = Math.max(x - radius, 0); i <= Math.min(x + radius, dimensionX - 1); i++) {
+          low = Math.min(low, sums[offset + i]);
+          high = Math.max(high, sums[offset + i]);
+        }
+        rowMin[offset + x] = low;
+        rowMax[offset + x] = high;
+      }
+    }
+    for (int y = 0; y < dimensionY; y++) {
+      int top = Math.max(y - radius, 0);
+      int bottom = Math.min(y + radius, dimensionY - 1);
+      for (int x = 0; x < dimensionX; x++) {
+        int low = Integer.MAX_VALUE;
+        int high = 0;
+        for (int j = top; j <= bottom; j++) {
+          low = Math.min(low, rowMin[j * dimensionX + x]);
+          high = Math.max(high, rowMax[j * dimensionX + x]);
+        }
+        min[y * dimensionX + x] = low;
+        max[y * dimensionX + x] = high;
+      }
+    }
+  }
+
+  /**
+   * Adds up the weighed samples of each module of a region of the grid, which makes 16 times its
+   * mean luminance, into sums.
+   *
+   * @param sums sums of the modules of the grid, row by row
+   * @param dimensionX width of the grid
+   * @param transform maps module coordinates from the top left of the region to the image
+   */
+  private void sampleModules(int[] sums,
+                             int dimensionX,
+                             int left,
+                             int top,
+                             int width,
+                             int height,
+                             PerspectiveTransform transform) throws NotFoundException {
+    if (luminances == null) {
+      luminances = source.getMatrix();
+    }
+    byte[] luminances = this.luminances;
+    int imageWidth = source.getWidth();
+    int imageHeight = source.getHeight();
+    double a11 = transform.a11 * 0.25;
+    double a12 = transform.a12 * 0.25;
+    double a13 = transform.a13 * 0.25;
+
+    // Samples lie on a lattice of quarter modules, leaving out the lines on module borders
+    int columns = width * 4;
+    for (int y = 0; y < height; y++) {
+      int offset = (top + y) * dimensionX + left;
+      for (int sampleY = 0; sampleY < SAMPLE_WEIGHTS.length; sampleY++) {
+        int rowWeight = SAMPLE_WEIGHTS[sampleY];
+        double iValue = y + (sampleY + 1) * 0.25;
+        // As in DefaultGridSampler, numerators and denominator advance by a constant step
+        double xNumerator = a11 + transform.a21 * iValue + transform.a31;
+        double yNumerator = a12 + transform.a22 * iValue + transform.a32;
+        double denominator = a13 + transform.a23 * iValue + transform.a33;
+        for (int column = 1; column < columns; column++) {
+          if ((column & 0x03) != 0) {
+            double imageX = xNumerator / denominator;
+            double imageY = yNumerator / denominator;
+            // Same tolerance as GridSampler.checkAndNudgePoints(); NaN fails it too
+            if (!(imageX >= -1.0 && imageX <= imageWidth && imageY >= -1.0 && imageY <= imageHeight)) {
+              throw NotFoundException.getNotFoundInstance();
+            }
+            int pixelX = Math.min(Math.max((int) imageX, 0), imageWidth - 1);
+            int pixelY = Math.min(Math.max((int) imageY, 0), imageHeight - 1);
+            int weight = rowWeight * SAMPLE_WEIGHTS[(column & 0x03) - 1];
+            sums[offset + (column >> 2)] += weight * (luminances[pixelY * imageWidth + pixelX] & 0xff);
+          }
+          xNumerator += a11;
+          yNumerator += a12;
+          denominator += a13;
+        }
+      }
+    }
+  }
+
+}
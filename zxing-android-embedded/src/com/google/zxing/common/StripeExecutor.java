@@ -0,0 +1,275 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Splits the rows of a frame into horizontal stripes and binarizes them in parallel on a small,
+ * bounded pool of worker threads. The calling thread processes one stripe itself and waits for
+ * the others. Every row of a {@link BitMatrix} starts with a new int, so stripes made of whole
+ * rows write disjoint words and need no locking.
+ *
+ * Frames smaller than a minimum area are processed entirely on the calling thread, since
+ * handing them off costs more than it saves.
+ *
+ * It can also hand out units one at a time, in order, to whichever thread is free, for work that
+ * may stop early, such as scanning rows for a 1D barcode.
+ *
+ * One instance may be shared by any number of binarizers, readers and threads. Call
+ * {@link #shutdown()} once it is no longer needed.
+ */
+public final class StripeExecutor {
+
+  private static final int DEFAULT_MINIMUM_AREA = 640 * 480;
+
+  private final ExecutorService workers;
+  private final int parallelism;
+  private final int minimumArea;
+
+  /**
+   * Creates an executor using one thread per available processor, and the default minimum
+   * frame area.
+   */
+  public StripeExecutor() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_MINIMUM_AREA);
+  }
+
+  /**
+   * @param parallelism maximum number of stripes processed at once, including the calling thread
+   * @param minimumArea frames with fewer pixels than this are not split at all
+   */
+  public StripeExecutor(int parallelism, int minimumArea) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1");
+    }
+    this.parallelism = parallelism;
+    this.minimumArea = minimumArea;
+    workers = parallelism > 1 ? Executors.newFixedThreadPool(parallelism - 1, new WorkerFactory()) : null;
+  }
+
+  /**
+   * Work on one stripe, given as a range of units (rows, or rows of blocks).
+   */
+  interface Task {
+    void run(int start, int end);
+  }
+
+  /**
+   * Work on one unit, handed out in order.
+   */
+  public interface OrderedTask {
+    /**
+     * @param unit the unit to work on
+     * @param worker index of the thread running the task, 0 for the calling thread, and below
+     *  {@link #getParallelism()} for the others. A thread keeps its index until the units run out.
+     * @return true if no unit after this one needs to be worked on
+     */
+    boolean run(int unit, int worker);
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs a task over {@code [0, units)}, one unit at a time, handing units out in increasing order
+   * to the calling thread and the workers as they become free. Once the task returns true for a
+   * unit, units after it are no longer handed out, while all units before it still are. Returns
+   * once all units handed out are done. Any exception thrown by the task is rethrown here.
+   *
+   * @param executor the executor to use, or null to run everything on the calling thread
+   * @param area number of pixels in the frame
+   * @param units number of units
+   * @param task the work for one unit
+   */
+  public static void executeInOrder(StripeExecutor executor, int area, int units, OrderedTask task) {
+    if (executor == null || executor.workers == null || executor.workers.isShutdown() ||
+        area < executor.minimumArea || units < 2) {
+      for (int unit = 0; unit < units; unit++) {
+        if (task.run(unit, 0)) {
+          return;
+        }
+      }
+    } else {
+      executor.handOut(units, task);
+    }
+  }
+
+  /**
+   * Runs a task over {@code [0, units)}, split into contiguous stripes, and returns once all of
+   * them are done. Any exception thrown by a stripe is rethrown here.
+   *
+   * @param executor the executor to use, or null to run everything on the calling thread
+   * @param area number of pixels in the frame
+   * @param units number of units to split into stripes
+   * @param task the work for one stripe
+   */
+  static void execute(StripeExecutor executor, int area, int units, Task task) {
+    if (executor == null || executor.workers == null || executor.workers.isShutdown() ||
+        area < executor.minimumArea || units < 2) {
+      task.run(0, units);
+    } else {
+      executor.split(units, task);
+    }
+  }
+
+  private void split(int units, final Task task) {
+    int stripes = Math.min(parallelism, units);
+    final CountDownLatch done = new CountDownLatch(stripes - 1);
+    final RuntimeException[] failure = new RuntimeException[1];
+    for (int i = 1; i < stripes; i++) {
+      final int start = units * i / stripes;
+      final int end = units * (i + 1) / stripes;
+      Runnable stripe = new Runnable() {
+        @Override
+        public void run() {
+          try {
+            task.run(start, end);
+          } catch (RuntimeException e) {
+            synchronized (failure) {
+              failure[0] = e;
+            }
+          } finally {
+            done.countDown();
+          }
+        }
+      };
+      try {
+        workers.execute(stripe);
+      } catch (RejectedExecutionException ree) {
+        // Shut down since the check in execute(); stripes already handed off are still waited for
+        stripe.run();
+      }
+    }
+    try {
+      task.run(0, units / stripes);
+    } finally {
+      // The other stripes write into the caller's matrix, so always wait for them.
+      awaitUninterruptibly(done);
+    }
+    synchronized (failure) {
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+    }
+  }
+
+  private void handOut(int units, final OrderedTask task) {
+    int threads = Math.min(parallelism, units);
+    final AtomicInteger next = new AtomicInteger();
+    // Units from this one on are no longer handed out
+    final AtomicInteger stop = new AtomicInteger(units);
+    final CountDownLatch done = new CountDownLatch(threads - 1);
+    final RuntimeException[] failure = new RuntimeException[1];
+    for (int i = 1; i < threads; i++) {
+      final int worker = i;
+      try {
+        workers.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              runUnits(next, stop, task, worker);
+            } catch (RuntimeException e) {
+              stop.set(0);
+              synchronized (failure) {
+                failure[0] = e;
+              }
+            } finally {
+              done.countDown();
+            }
+          }
+        });
+      } catch (RejectedExecutionException ree) {
+        // Shut down since the check in executeInOrder(); the calling thread takes the units of the
+        // workers not started, and still waits for those which were
+        for (int j = i; j < threads; j++) {
+          done.countDown();
+        }
+        break;
+      }
+    }
+    try {
+      runUnits(next, stop, task, 0);
+    } catch (RuntimeException e) {
+      stop.set(0);
+      throw e;
+    } finally {
+      // The task may still be writing results, so always wait for the workers.
+      awaitUninterruptibly(done);
+    }
+    synchronized (failure) {
+      if (failure[0] != null) {
+        throw failure[0];
+      }
+    }
+  }
+
+  private static void runUnits(AtomicInteger next, AtomicInteger stop, OrderedTask task, int worker) {
+    int unit;
+    while ((unit = next.getAndIncrement()) < stop.get()) {
+      if (task.run(unit, worker)) {
+        int current;
+        do {
+          current = stop.get();
+        } while (current > unit + 1 && !stop.compareAndSet(current, unit + 1));
+      }
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Stops the worker threads. Binarizers still holding this executor then run on the calling thread.
+   */
+  public void shutdown() {
+    if (workers != null) {
+      workers.shutdown();
+    }
+  }
+
+  private static final class WorkerFactory implements ThreadFactory {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "StripeExecutor-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+}
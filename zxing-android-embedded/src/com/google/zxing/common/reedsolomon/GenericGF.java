@@ -38,6 +38,9 @@ public final class GenericGF {
   public static final GenericGF AZTEC_DATA_8 = DATA_MATRIX_FIELD_256;
   public static final GenericGF MAXICODE_FIELD_64 = AZTEC_DATA_6;
 
+  // Largest field whose products are all tabulated, one byte each
+  private static final int MAX_MULTIPLICATION_TABLE_SIZE = 256;
+
   private final int[] expTable;
   private final int[] logTable;
   private final GenericGFPoly zero;
@@ -45,6 +48,7 @@ public final class GenericGF {
   private final int size;
   private final int primitive;
   private final int generatorBase;
+  private volatile byte[] multiplicationTable;
 
   /**
    * Create a representation of GF(size) using the given primitive polynomial.
@@ -150,6 +154,29 @@ public final class GenericGF {
     return expTable[(logTable[a] + logTable[b]) % (size - 1)];
   }
 
+  /**
+   * @return the product of every pair of elements, a * b being at index a * size + b, or null if
+   *  the field is too large for such a table. The table is built the first time it is needed.
+   */
+  byte[] getMultiplicationTable() {
+    if (size > MAX_MULTIPLICATION_TABLE_SIZE) {
+      return null;
+    }
+    byte[] table = multiplicationTable;
+    if (table == null) {
+      // Threads getting here at the same time each build an identical table, which is harmless
+      table = new byte[size * size];
+      for (int a = 1; a < size; a++) {
+        int logA = logTable[a];
+        for (int b = 1; b < size; b++) {
+          table[a * size + b] = (byte) expTable[(logA + logTable[b]) % (size - 1)];
+        }
+      }
+      multiplicationTable = table;
+    }
+    return table;
+  }
+
   public int getSize() {
     return size;
   }
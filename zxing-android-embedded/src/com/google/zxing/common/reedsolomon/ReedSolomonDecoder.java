@@ -34,6 +34,17 @@ package com.google.zxing.common.reedsolomon;
  * <p>Much credit is due to William Rucklidge since portions of this code are an indirect
  * port of his C++ Reed-Solomon implementation.</p>
  *
+ * <p>Besides errors at unknown positions, the decoder corrects erasures: codewords the caller
+ * knows to be unreliable, at given positions. Each erasure takes up one error-correction
+ * codeword where an error takes two, so with e errors and f erasures, decoding succeeds as long
+ * as 2e + f is at most the number of error-correction codewords. The erasures are folded into
+ * the syndromes before the Euclidean algorithm, as described by Forney, and their locations
+ * multiplied into the error locator afterwards.</p>
+ *
+ * <p>Polynomials are worked on in scratch arrays kept by each instance, so decoding allocates
+ * nothing once the largest number of error-correction codewords has been seen. As a consequence
+ * an instance must not be used by several threads at once.</p>
+ *
  * @author Sean Owen
  * @author William Rucklidge
  * @author sanfordsquires
@@ -42,6 +53,24 @@ public final class ReedSolomonDecoder {
 
   private final GenericGF field;
 
+  // Scratch space, sized for the largest number of error-correction codewords seen so far.
+  // Polynomials are held with the coefficient of x^i at index i, and their degree alongside.
+  private int[] syndromes = new int[0];
+  private int[] rLast;
+  private int[] r;
+  private int[] tLastLast;
+  private int[] tLast;
+  private int[] t;
+  private int[] q;
+  private int[] gamma;
+  private int[] sigma;
+  private int sigmaDegree;
+  private int[] omega;
+  private int omegaDegree;
+  private int[] termLogs;
+  private int[] errorLocations;
+  private int[] errorMagnitudes;
+
   public ReedSolomonDecoder(GenericGF field) {
     this.field = field;
   }
@@ -56,12 +85,52 @@ public final class ReedSolomonDecoder {
    * @throws ReedSolomonException if decoding fails for any reason
    */
   public void decode(int[] received, int twoS) throws ReedSolomonException {
-    GenericGFPoly poly = new GenericGFPoly(field, received);
-    int[] syndromeCoefficients = new int[twoS];
+    decode(received, received.length, twoS);
+  }
+
+  /**
+   * <p>Like {@link #decode(int[], int)}, but the codewords are only the first {@code length}
+   * elements of {@code received}, so that callers can keep one array for blocks of any size.</p>
+   *
+   * @param received data and error-correction codewords, followed by anything
+   * @param length number of codewords
+   * @param twoS number of error-correction codewords available
+   * @throws ReedSolomonException if decoding fails for any reason
+   */
+  public void decode(int[] received, int length, int twoS) throws ReedSolomonException {
+    decode(received, length, twoS, null, 0);
+  }
+
+  /**
+   * <p>Like {@link #decode(int[], int, int)}, but also given the positions of erasures: codewords
+   * which are likely to be wrong. Erased codewords are corrected whatever their value, and any
+   * left as they are if they were right.</p>
+   *
+   * @param received data and error-correction codewords, followed by anything
+   * @param length number of codewords
+   * @param twoS number of error-correction codewords available
+   * @param erasures positions in received of the erased codewords, all different, or null if
+   *  numErasures is 0
+   * @param numErasures number of positions in erasures, at most twoS
+   * @throws ReedSolomonException if decoding fails for any reason
+   */
+  public void decode(int[] received, int length, int twoS, int[] erasures, int numErasures)
+      throws ReedSolomonException {
+    if (numErasures > twoS) {
+      throw new ReedSolomonException("Too many erasures");
+    }
+    if (syndromes.length < twoS) {
+      allocate(twoS);
+    }
+    // Most blocks have no error at all, and computing the syndromes is then all there is to do:
+    // look the products up in a table rather than through logarithms where the field allows it.
+    byte[] products = field.getMultiplicationTable();
     boolean noError = true;
     for (int i = 0; i < twoS; i++) {
-      int eval = poly.evaluateAt(field.exp(i + field.getGeneratorBase()));
-      syndromeCoefficients[syndromeCoefficients.length - 1 - i] = eval;
+      int a = field.exp(i + field.getGeneratorBase());
+      int eval = products == null ? evaluateReceived(received, length, a) :
+          evaluateReceived(received, length, products, a * field.getSize());
+      syndromes[i] = eval;
       if (eval != 0) {
         noError = false;
       }
@@ -69,105 +138,312 @@ public final class ReedSolomonDecoder {
     if (noError) {
       return;
     }
-    GenericGFPoly syndrome = new GenericGFPoly(field, syndromeCoefficients);
-    GenericGFPoly[] sigmaOmega =
-        runEuclideanAlgorithm(field.buildMonomial(twoS, 1), syndrome, twoS);
-    GenericGFPoly sigma = sigmaOmega[0];
-    GenericGFPoly omega = sigmaOmega[1];
-    int[] errorLocations = findErrorLocations(sigma);
-    int[] errorMagnitudes = findErrorMagnitudes(omega, errorLocations);
-    for (int i = 0; i < errorLocations.length; i++) {
-      int position = received.length - 1 - field.log(errorLocations[i]);
-      if (position < 0) {
+    if (numErasures > 0) {
+      buildErasureLocator(length, erasures, numErasures);
+      modifySyndromes(twoS, numErasures);
+    }
+    runEuclideanAlgorithm(twoS, numErasures);
+    if (numErasures > 0) {
+      multiplySigmaByErasureLocator(numErasures);
+    }
+    if (omegaDegree >= sigmaDegree) {
+      // Every solution has an evaluator of lower degree than its locator; the received codewords
+      // are no valid block with errors and erasures at this many locations
+      throw new ReedSolomonException("Error evaluator degree too high");
+    }
+    int numErrors = findErrorLocations();
+    findErrorMagnitudes(numErrors);
+    // Check every location before correcting any, so that received is untouched on failure
+    for (int i = 0; i < numErrors; i++) {
+      if (length - 1 - field.log(errorLocations[i]) < 0) {
         throw new ReedSolomonException("Bad error location");
       }
+    }
+    for (int i = 0; i < numErrors; i++) {
+      int position = length - 1 - field.log(errorLocations[i]);
       received[position] = GenericGF.addOrSubtract(received[position], errorMagnitudes[i]);
     }
   }
 
-  private GenericGFPoly[] runEuclideanAlgorithm(GenericGFPoly a, GenericGFPoly b, int R)
-      throws ReedSolomonException {
-    // Assume a's degree is >= b's
-    if (a.getDegree() < b.getDegree()) {
-      GenericGFPoly temp = a;
-      a = b;
-      b = temp;
+  private void allocate(int twoS) {
+    syndromes = new int[twoS];
+    rLast = new int[twoS + 1];
+    r = new int[twoS + 1];
+    tLastLast = new int[twoS + 1];
+    tLast = new int[twoS + 1];
+    t = new int[twoS + 1];
+    q = new int[twoS + 1];
+    gamma = new int[twoS + 1];
+    sigma = new int[twoS + 1];
+    omega = new int[twoS + 1];
+    termLogs = new int[twoS + 1];
+    errorLocations = new int[twoS];
+    errorMagnitudes = new int[twoS];
+  }
+
+  /**
+   * @return the received polynomial, highest degree first, evaluated at a
+   */
+  private int evaluateReceived(int[] received, int length, int a) {
+    int result = 0;
+    for (int i = 0; i < length; i++) {
+      result = GenericGF.addOrSubtract(field.multiply(a, result), received[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #evaluateReceived(int[], int, int)}, multiplying through the field's table.
+   *
+   * @param productsOffset index in products of the row of the products by a
+   */
+  private static int evaluateReceived(int[] received, int length, byte[] products, int productsOffset) {
+    int result = 0;
+    for (int i = 0; i < length; i++) {
+      result = (products[productsOffset + result] & 0xFF) ^ received[i];
+    }
+    return result;
+  }
+
+  /**
+   * @return the polynomial, lowest degree first, evaluated at a
+   */
+  private int evaluate(int[] coefficients, int degree, int a) {
+    int result = coefficients[degree];
+    for (int i = degree - 1; i >= 0; i--) {
+      result = GenericGF.addOrSubtract(field.multiply(a, result), coefficients[i]);
+    }
+    return result;
+  }
+
+  /**
+   * @return degree of the polynomial once leading zero coefficients are dropped, 0 if it is zero
+   */
+  private static int degree(int[] coefficients, int maxDegree) {
+    int degree = maxDegree;
+    while (degree > 0 && coefficients[degree] == 0) {
+      degree--;
+    }
+    return degree;
+  }
+
+  /**
+   * Builds the erasure locator in {@link #gamma}: the product of 1 - X x over the location X of
+   * each erasure, which has degree numErasures.
+   */
+  private void buildErasureLocator(int length, int[] erasures, int numErasures) throws ReedSolomonException {
+    int[] gamma = this.gamma;
+    gamma[0] = 1;
+    for (int i = 0; i < numErasures; i++) {
+      int position = erasures[i];
+      if (position < 0 || position >= length) {
+        throw new ReedSolomonException("Bad erasure position");
+      }
+      // Same correspondence between locations and positions as for errors
+      int location = field.exp(length - 1 - position);
+      gamma[i + 1] = 0;
+      for (int j = i + 1; j > 0; j--) {
+        gamma[j] ^= field.multiply(gamma[j - 1], location);
+      }
+    }
+  }
+
+  /**
+   * Multiplies the syndrome polynomial by the erasure locator, modulo x^twoS, in place.
+   */
+  private void modifySyndromes(int twoS, int numErasures) {
+    int[] syndromes = this.syndromes;
+    int[] gamma = this.gamma;
+    // Coefficients only depend on lower ones, so work down from the highest
+    for (int i = twoS - 1; i >= 0; i--) {
+      int coefficient = syndromes[i];
+      for (int j = 1; j <= Math.min(i, numErasures); j++) {
+        coefficient ^= field.multiply(gamma[j], syndromes[i - j]);
+      }
+      syndromes[i] = coefficient;
+    }
+  }
+
+  /**
+   * Multiplies the error locator {@link #sigma} by the erasure locator, so that its roots locate
+   * the erasures as well as the errors.
+   */
+  private void multiplySigmaByErasureLocator(int numErasures) {
+    int[] product = q;
+    int productDegree = sigmaDegree + numErasures;
+    for (int i = 0; i <= productDegree; i++) {
+      product[i] = 0;
+    }
+    for (int i = 0; i <= sigmaDegree; i++) {
+      int coefficient = sigma[i];
+      if (coefficient != 0) {
+        for (int j = 0; j <= numErasures; j++) {
+          product[i + j] ^= field.multiply(coefficient, gamma[j]);
+        }
+      }
     }
+    q = sigma;
+    sigma = product;
+    sigmaDegree = productDegree;
+  }
+
+  /**
+   * Runs the Euclidean algorithm on x^twoS and the syndrome polynomial, in the scratch arrays,
+   * leaving the error locator in {@link #sigma} and the error evaluator in {@link #omega}.
+   * With erasures, the syndromes are those modified by {@link #modifySyndromes(int, int)}, the
+   * evaluator covers the erasures too, and the locator is for the errors alone.
+   */
+  private void runEuclideanAlgorithm(int twoS, int numErasures) throws ReedSolomonException {
+    // The evaluator has degree below e + f, which is at most half of twoS + f
+    int R = twoS + numErasures;
+    int[] rLast = this.rLast;
+    int[] r = this.r;
+    int[] tLastLast = this.tLastLast;
+    int[] tLast = this.tLast;
+    int[] t = this.t;
+    int[] q = this.q;
 
-    GenericGFPoly rLast = a;
-    GenericGFPoly r = b;
-    GenericGFPoly tLast = field.getZero();
-    GenericGFPoly t = field.getOne();
+    for (int i = 0; i < twoS; i++) {
+      rLast[i] = 0;
+    }
+    rLast[twoS] = 1;
+    int rLastDegree = twoS;
+    System.arraycopy(syndromes, 0, r, 0, twoS);
+    int rDegree = degree(r, twoS - 1);
+    tLast[0] = 0;
+    int tLastDegree = 0;
+    t[0] = 1;
+    int tDegree = 0;
 
     // Run Euclidean algorithm until r's degree is less than R/2
-    while (r.getDegree() >= R / 2) {
-      GenericGFPoly rLastLast = rLast;
-      GenericGFPoly tLastLast = tLast;
+    while (rDegree >= R / 2) {
+      // The polynomial two steps back is divided in place to give the next remainder
+      int[] temp = rLast;
       rLast = r;
+      r = temp;
+      int tempDegree = rLastDegree;
+      rLastDegree = rDegree;
+      rDegree = tempDegree;
+      temp = tLastLast;
+      tLastLast = tLast;
       tLast = t;
+      t = temp;
+      int tLastLastDegree = tLastDegree;
+      tLastDegree = tDegree;
 
       // Divide rLastLast by rLast, with quotient in q and remainder in r
-      if (rLast.isZero()) {
+      if (rLastDegree == 0 && rLast[0] == 0) {
         // Oops, Euclidean algorithm already terminated?
         throw new ReedSolomonException("r_{i-1} was zero");
       }
-      r = rLastLast;
-      GenericGFPoly q = field.getZero();
-      int denominatorLeadingTerm = rLast.getCoefficient(rLast.getDegree());
+      int qDegree = Math.max(rDegree - rLastDegree, 0);
+      for (int i = 0; i <= qDegree; i++) {
+        q[i] = 0;
+      }
+      int denominatorLeadingTerm = rLast[rLastDegree];
       int dltInverse = field.inverse(denominatorLeadingTerm);
-      while (r.getDegree() >= rLast.getDegree() && !r.isZero()) {
-        int degreeDiff = r.getDegree() - rLast.getDegree();
-        int scale = field.multiply(r.getCoefficient(r.getDegree()), dltInverse);
-        q = q.addOrSubtract(field.buildMonomial(degreeDiff, scale));
-        r = r.addOrSubtract(rLast.multiplyByMonomial(degreeDiff, scale));
+      while (rDegree >= rLastDegree && !(rDegree == 0 && r[0] == 0)) {
+        int degreeDiff = rDegree - rLastDegree;
+        int scale = field.multiply(r[rDegree], dltInverse);
+        q[degreeDiff] ^= scale;
+        for (int i = 0; i <= rLastDegree; i++) {
+          r[i + degreeDiff] ^= field.multiply(rLast[i], scale);
+        }
+        rDegree = degree(r, rDegree);
       }
 
-      t = q.multiply(tLast).addOrSubtract(tLastLast);
+      // t = q * tLast + tLastLast
+      tDegree = Math.max(qDegree + tLastDegree, tLastLastDegree);
+      for (int i = 0; i <= tDegree; i++) {
+        t[i] = 0;
+      }
+      for (int i = 0; i <= qDegree; i++) {
+        int qCoefficient = q[i];
+        if (qCoefficient != 0) {
+          for (int j = 0; j <= tLastDegree; j++) {
+            t[i + j] ^= field.multiply(qCoefficient, tLast[j]);
+          }
+        }
+      }
+      for (int i = 0; i <= tLastLastDegree; i++) {
+        t[i] ^= tLastLast[i];
+      }
+      tDegree = degree(t, tDegree);
 
-      if (r.getDegree() >= rLast.getDegree()) {
+      if (rDegree >= rLastDegree) {
         throw new IllegalStateException("Division algorithm failed to reduce polynomial?");
       }
     }
 
-    int sigmaTildeAtZero = t.getCoefficient(0);
+    // Keep the rotated buffers for the next call
+    this.rLast = rLast;
+    this.r = r;
+    this.tLastLast = tLastLast;
+    this.tLast = tLast;
+    this.t = t;
+
+    int sigmaTildeAtZero = t[0];
     if (sigmaTildeAtZero == 0) {
       throw new ReedSolomonException("sigmaTilde(0) was zero");
     }
 
     int inverse = field.inverse(sigmaTildeAtZero);
-    GenericGFPoly sigma = t.multiply(inverse);
-    GenericGFPoly omega = r.multiply(inverse);
-    return new GenericGFPoly[]{sigma, omega};
+    for (int i = 0; i <= tDegree; i++) {
+      sigma[i] = field.multiply(t[i], inverse);
+    }
+    sigmaDegree = tDegree;
+    for (int i = 0; i <= rDegree; i++) {
+      omega[i] = field.multiply(r[i], inverse);
+    }
+    omegaDegree = rDegree;
   }
 
-  private int[] findErrorLocations(GenericGFPoly errorLocator) throws ReedSolomonException {
+  /**
+   * Finds the error locations, as the inverses of the roots of {@link #sigma}.
+   *
+   * @return number of errors
+   */
+  private int findErrorLocations() throws ReedSolomonException {
     // This is a direct application of Chien's search
-    int numErrors = errorLocator.getDegree();
+    int numErrors = sigmaDegree;
     if (numErrors == 1) { // shortcut
-      return new int[] { errorLocator.getCoefficient(1) };
+      errorLocations[0] = sigma[1];
+      return 1;
+    }
+    // Evaluates sigma at a^0, a^1, a^2... in turn. Each term is kept as the log of its value,
+    // which grows by the degree of the term from one element to the next.
+    int order = field.getSize() - 1;
+    for (int j = 1; j <= numErrors; j++) {
+      termLogs[j] = sigma[j] == 0 ? -1 : field.log(sigma[j]);
     }
-    int[] result = new int[numErrors];
     int e = 0;
-    for (int i = 1; i < field.getSize() && e < numErrors; i++) {
-      if (errorLocator.evaluateAt(i) == 0) {
-        result[e] = field.inverse(i);
+    for (int k = 0; k < order && e < numErrors; k++) {
+      int value = sigma[0];
+      for (int j = 1; j <= numErrors; j++) {
+        int log = termLogs[j];
+        if (log >= 0) {
+          value ^= field.exp(log);
+          log += j;
+          termLogs[j] = log >= order ? log - order : log;
+        }
+      }
+      if (value == 0) {
+        errorLocations[e] = field.exp(k == 0 ? 0 : order - k);
         e++;
       }
     }
     if (e != numErrors) {
       throw new ReedSolomonException("Error locator degree does not match number of roots");
     }
-    return result;
+    return e;
   }
 
-  private int[] findErrorMagnitudes(GenericGFPoly errorEvaluator, int[] errorLocations) {
+  private void findErrorMagnitudes(int numErrors) {
     // This is directly applying Forney's Formula
-    int s = errorLocations.length;
-    int[] result = new int[s];
-    for (int i = 0; i < s; i++) {
+    for (int i = 0; i < numErrors; i++) {
       int xiInverse = field.inverse(errorLocations[i]);
       int denominator = 1;
-      for (int j = 0; j < s; j++) {
+      for (int j = 0; j < numErrors; j++) {
         if (i != j) {
           //denominator = field.multiply(denominator,
           //    GenericGF.addOrSubtract(1, field.multiply(errorLocations[j], xiInverse)));
@@ -178,13 +454,12 @@ public final class ReedSolomonDecoder {
           denominator = field.multiply(denominator, termPlus1);
         }
       }
-      result[i] = field.multiply(errorEvaluator.evaluateAt(xiInverse),
+      errorMagnitudes[i] = field.multiply(evaluate(omega, omegaDegree, xiInverse),
           field.inverse(denominator));
       if (field.getGeneratorBase() != 0) {
-        result[i] = field.multiply(result[i], xiInverse);
+        errorMagnitudes[i] = field.multiply(errorMagnitudes[i], xiInverse);
       }
     }
-    return result;
   }
 
 }
@@ -33,6 +33,8 @@ import com.google.zxing.common.reedsolomon.ReedSolomonException;
 public final class Decoder {
 
   private final ReedSolomonDecoder rsDecoder;
+  // Codewords of the block being corrected, kept from one block to the next
+  private int[] codewordsInts = new int[0];
 
   public Decoder() {
     rsDecoder = new ReedSolomonDecoder(GenericGF.DATA_MATRIX_FIELD_256);
@@ -106,12 +108,15 @@ public final class Decoder {
   private void correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
     int numCodewords = codewordBytes.length;
     // First read into an array of ints
-    int[] codewordsInts = new int[numCodewords];
+    if (codewordsInts.length < numCodewords) {
+      codewordsInts = new int[numCodewords];
+    }
+    int[] codewordsInts = this.codewordsInts;
     for (int i = 0; i < numCodewords; i++) {
       codewordsInts[i] = codewordBytes[i] & 0xFF;
     }
     try {
-      rsDecoder.decode(codewordsInts, codewordBytes.length - numDataCodewords);
+      rsDecoder.decode(codewordsInts, numCodewords, codewordBytes.length - numDataCodewords);
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
@@ -40,6 +40,8 @@ public final class Decoder {
   private static final int ODD = 2;
 
   private final ReedSolomonDecoder rsDecoder;
+  // Codewords of the part being corrected, kept from one part to the next
+  private int[] codewordsInts = new int[0];
 
   public Decoder() {
     rsDecoder = new ReedSolomonDecoder(GenericGF.MAXICODE_FIELD_64);
@@ -91,14 +93,17 @@ public final class Decoder {
     int divisor = mode == ALL ? 1 : 2;
 
     // First read into an array of ints
-    int[] codewordsInts = new int[codewords / divisor];
+    if (codewordsInts.length < codewords / divisor) {
+      codewordsInts = new int[codewords / divisor];
+    }
+    int[] codewordsInts = this.codewordsInts;
     for (int i = 0; i < codewords; i++) {
       if ((mode == ALL) || (i % 2 == (mode - 1))) {
         codewordsInts[i / divisor] = codewordBytes[i + start] & 0xFF;
       }
     }
     try {
-      rsDecoder.decode(codewordsInts, ecCodewords / divisor);
+      rsDecoder.decode(codewordsInts, codewords / divisor, ecCodewords / divisor);
     } catch (ReedSolomonException ignored) {
       throw ChecksumException.getChecksumInstance();
     }
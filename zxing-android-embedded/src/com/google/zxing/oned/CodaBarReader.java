@@ -21,7 +21,6 @@ import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
-import com.google.zxing.common.BitArray;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -77,7 +76,12 @@ public final class CodaBarReader extends OneDReader {
   }
 
   @Override
-  public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) throws NotFoundException {
+  protected OneDReader newRowDecoder() {
+    return new CodaBarReader();
+  }
+
+  @Override
+  public Result decodeRow(int rowNumber, RowRuns row, Map<DecodeHintType,?> hints) throws NotFoundException {
 
     Arrays.fill(counters, 0);
     setCounters(row);
@@ -225,29 +229,19 @@ public final class CodaBarReader extends OneDReader {
    * Records the size of all runs of white and black pixels, starting with white.
    * This is just like recordPattern, except it records all the counters, and
    * uses our builtin "counters" member for storage.
-   * @param row row to count from
+   * @param row runs of row to count from
    */
-  private void setCounters(BitArray row) throws NotFoundException {
+  private void setCounters(RowRuns row) throws NotFoundException {
     counterLength = 0;
-    // Start from the first white bit.
-    int i = row.getNextUnset(0);
-    int end = row.getSize();
-    if (i >= end) {
+    // Start from the first white run.
+    int run = row.getRun(row.getNextUnset(0));
+    int numRuns = row.getNumRuns();
+    if (run >= numRuns) {
       throw NotFoundException.getNotFoundInstance();
     }
-    boolean isWhite = true;
-    int count = 0;
-    while (i < end) {
-      if (row.get(i) != isWhite) {
-        count++;
-      } else {
-        counterAppend(count);
-        count = 1;
-        isWhite = !isWhite;
-      }
-      i++;
+    for (; run < numRuns; run++) {
+      counterAppend(row.getRunLength(run));
     }
-    counterAppend(count);
   }
 
   private void counterAppend(int e) {
@@ -23,7 +23,6 @@ import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
-import com.google.zxing.common.BitArray;
 
 import java.util.Arrays;
 import java.util.Map;
@@ -95,7 +94,12 @@ public final class Code39Reader extends OneDReader {
   }
 
   @Override
-  public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+  protected OneDReader newRowDecoder() {
+    return new Code39Reader(usingCheckDigit, extendedMode);
+  }
+
+  @Override
+  public Result decodeRow(int rowNumber, RowRuns row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
 
     int[] theCounters = counters;
@@ -175,35 +179,20 @@ public final class Code39Reader extends OneDReader {
 
   }
 
-  private static int[] findAsteriskPattern(BitArray row, int[] counters) throws NotFoundException {
-    int width = row.getSize();
-    int rowOffset = row.getNextSet(0);
-
-    int counterPosition = 0;
-    int patternStart = rowOffset;
-    boolean isWhite = false;
+  private static int[] findAsteriskPattern(RowRuns row, int[] counters) throws NotFoundException {
     int patternLength = counters.length;
+    int numRuns = row.getNumRuns();
 
-    for (int i = rowOffset; i < width; i++) {
-      if (row.get(i) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          // Look for whitespace before start pattern, >= 50% of width of start pattern
-          if (toNarrowWidePattern(counters) == ASTERISK_ENCODING &&
-              row.isRange(Math.max(0, patternStart - ((i - patternStart) / 2)), patternStart, false)) {
-            return new int[]{patternStart, i};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+    // Try each black run in turn, once the run after the pattern has begun
+    for (int run = row.getRun(row.getNextSet(0)); run + patternLength < numRuns; run += 2) {
+      int patternStart = row.getRunStart(run);
+      row.recordRuns(run, patternStart, counters);
+      int patternEnd = row.getRunStart(run + patternLength);
+      // Look for whitespace before start pattern, >= 50% of width of start pattern, which is
+      // quicker to rule out than the pattern
+      if (row.isRange(Math.max(0, patternStart - ((patternEnd - patternStart) / 2)), patternStart, false) &&
+          toNarrowWidePattern(counters) == ASTERISK_ENCODING) {
+        return new int[]{patternStart, patternEnd};
       }
     }
     throw NotFoundException.getNotFoundInstance();
@@ -18,7 +18,6 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.common.BitArray;
 
 /**
  * <p>Implements decoding of the EAN-13 format.</p>
@@ -69,7 +68,12 @@ public final class EAN13Reader extends UPCEANReader {
   }
 
   @Override
-  protected int decodeMiddle(BitArray row,
+  protected OneDReader newRowDecoder() {
+    return new EAN13Reader();
+  }
+
+  @Override
+  protected int decodeMiddle(RowRuns row,
                              int[] startRange,
                              StringBuilder resultString) throws NotFoundException {
     int[] counters = decodeMiddleCounters;
@@ -83,7 +87,7 @@ public final class EAN13Reader extends UPCEANReader {
     int lgPatternFound = 0;
 
     for (int x = 0; x < 6 && rowOffset < end; x++) {
-      int bestMatch = decodeDigit(row, counters, rowOffset, L_AND_G_PATTERNS);
+      int bestMatch = decodeDigit(row, counters, rowOffset, L_AND_G_CLASSIFIER);
       resultString.append((char) ('0' + bestMatch % 10));
       for (int counter : counters) {
         rowOffset += counter;
@@ -99,7 +103,7 @@ public final class EAN13Reader extends UPCEANReader {
     rowOffset = middleRange[1];
 
     for (int x = 0; x < 6 && rowOffset < end; x++) {
-      int bestMatch = decodeDigit(row, counters, rowOffset, L_PATTERNS);
+      int bestMatch = decodeDigit(row, counters, rowOffset, L_CLASSIFIER);
       resultString.append((char) ('0' + bestMatch));
       for (int counter : counters) {
         rowOffset += counter;
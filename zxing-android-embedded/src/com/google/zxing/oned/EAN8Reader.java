@@ -18,7 +18,6 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.common.BitArray;
 
 /**
  * <p>Implements decoding of the EAN-8 format.</p>
@@ -34,7 +33,12 @@ public final class EAN8Reader extends UPCEANReader {
   }
 
   @Override
-  protected int decodeMiddle(BitArray row,
+  protected OneDReader newRowDecoder() {
+    return new EAN8Reader();
+  }
+
+  @Override
+  protected int decodeMiddle(RowRuns row,
                              int[] startRange,
                              StringBuilder result) throws NotFoundException {
     int[] counters = decodeMiddleCounters;
@@ -46,7 +50,7 @@ public final class EAN8Reader extends UPCEANReader {
     int rowOffset = startRange[1];
 
     for (int x = 0; x < 4 && rowOffset < end; x++) {
-      int bestMatch = decodeDigit(row, counters, rowOffset, L_PATTERNS);
+      int bestMatch = decodeDigit(row, counters, rowOffset, L_CLASSIFIER);
       result.append((char) ('0' + bestMatch));
       for (int counter : counters) {
         rowOffset += counter;
@@ -57,7 +61,7 @@ public final class EAN8Reader extends UPCEANReader {
     rowOffset = middleRange[1];
 
     for (int x = 0; x < 4 && rowOffset < end; x++) {
-      int bestMatch = decodeDigit(row, counters, rowOffset, L_PATTERNS);
+      int bestMatch = decodeDigit(row, counters, rowOffset, L_CLASSIFIER);
       result.append((char) ('0' + bestMatch));
       for (int counter : counters) {
         rowOffset += counter;
@@ -17,26 +17,41 @@
 package com.google.zxing.oned;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.common.BitArray;
 import com.google.zxing.oned.rss.RSS14Reader;
 import com.google.zxing.oned.rss.expanded.RSSExpandedReader;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 /**
+ * <p>Tries each of the readers of the requested formats on a row. The runs of the row are counted
+ * once and shared by all of them.</p>
+ *
+ * <p>With {@link DecodeHintType#ROW_VOTES}, a row's result is only returned once enough rows have
+ * decoded the same. The rows voted so far are kept by {@link #reset()}, so that they can carry
+ * over to the next frame with {@link DecodeHintType#TRACK_BETWEEN_FRAMES}.</p>
+ *
  * @author dswitkin@google.com (Daniel Switkin)
  * @author Sean Owen
  */
 public final class MultiFormatOneDReader extends OneDReader {
 
   private final OneDReader[] readers;
+  private final RowVotes rowVotes = new RowVotes();
+  // Votes needed for a result, while decoding with DecodeHintType.ROW_VOTES
+  private int votesNeeded = 1;
+  // Rows voted while decoding the current frame
+  private int rowsVoted;
 
   public MultiFormatOneDReader(Map<DecodeHintType,?> hints) {
     @SuppressWarnings("unchecked")
@@ -87,21 +102,88 @@ public final class MultiFormatOneDReader extends OneDReader {
     this.readers = readers.toArray(new OneDReader[readers.size()]);
   }
 
+  private MultiFormatOneDReader(OneDReader[] readers) {
+    this.readers = readers;
+  }
+
+  /**
+   * @return a reader with a copy of each reader of this one, or null if any of them, such as an
+   *  RSS reader, cannot be copied
+   */
+  @Override
+  protected OneDReader newRowDecoder() {
+    OneDReader[] copies = new OneDReader[readers.length];
+    for (int i = 0; i < readers.length; i++) {
+      copies[i] = readers[i].newRowDecoder();
+      if (copies[i] == null) {
+        return null;
+      }
+    }
+    return new MultiFormatOneDReader(copies);
+  }
+
+  @Override
+  public Result decode(BinaryBitmap image,
+                       Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
+    Integer votes = hints == null ? null : (Integer) hints.get(DecodeHintType.ROW_VOTES);
+    if (votes == null || votes <= 1) {
+      return super.decode(image, hints);
+    }
+    boolean acrossFrames = hints.containsKey(DecodeHintType.TRACK_BETWEEN_FRAMES);
+    if (!acrossFrames) {
+      rowVotes.clear();
+    }
+    if (hints.containsKey(DecodeHintType.PARALLEL_ROWS)) {
+      // Votes are counted by this reader, so it must see every row itself
+      Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+      newHints.putAll(hints);
+      newHints.remove(DecodeHintType.PARALLEL_ROWS);
+      hints = newHints;
+    }
+    votesNeeded = votes;
+    rowsVoted = 0;
+    try {
+      return super.decode(image, hints);
+    } catch (NotFoundException nfe) {
+      if (rowsVoted == 0) {
+        // The barcode, if any, is out of sight; don't count earlier rows towards the next one
+        rowVotes.clear();
+      }
+      throw nfe;
+    } finally {
+      votesNeeded = 1;
+    }
+  }
+
   @Override
   public Result decodeRow(int rowNumber,
-                          BitArray row,
+                          RowRuns row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
     for (OneDReader reader : readers) {
+      Result result;
       try {
-        return reader.decodeRow(rowNumber, row, hints);
+        result = reader.decodeRow(rowNumber, row, hints);
       } catch (ReaderException re) {
-        // continue
+        continue;
+      }
+      if (votesNeeded > 1) {
+        rowsVoted++;
+        if (rowVotes.add(result) < votesNeeded) {
+          // Not confirmed yet; look at more rows
+          throw NotFoundException.getNotFoundInstance();
+        }
+        rowVotes.clear();
       }
+      return result;
     }
 
     throw NotFoundException.getNotFoundInstance();
   }
 
+  /**
+   * Does not forget the rows voted for {@link DecodeHintType#ROW_VOTES}, which may carry over to
+   * the next image.
+   */
   @Override
   public void reset() {
     for (Reader reader : readers) {
@@ -109,4 +191,36 @@ public final class MultiFormatOneDReader extends OneDReader {
     }
   }
 
+  /**
+   * Results decoded from rows, to vote on.
+   */
+  private static final class RowVotes {
+
+    // Results kept at most; older ones are forgotten first
+    private static final int MAX_RESULTS = 256;
+
+    private final List<Result> results = new ArrayList<>();
+
+    void clear() {
+      results.clear();
+    }
+
+    /**
+     * @return how many rows, this one included, decoded the same format and text
+     */
+    int add(Result result) {
+      if (results.size() == MAX_RESULTS) {
+        results.remove(0);
+      }
+      results.add(result);
+      int votes = 0;
+      for (Result other : results) {
+        if (other.getBarcodeFormat() == result.getBarcodeFormat() && other.getText().equals(result.getText())) {
+          votes++;
+        }
+      }
+      return votes;
+    }
+  }
+
 }
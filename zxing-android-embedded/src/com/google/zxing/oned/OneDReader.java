@@ -27,6 +27,7 @@ import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
+import com.google.zxing.common.StripeExecutor;
 
 import java.util.Arrays;
 import java.util.EnumMap;
@@ -41,6 +42,9 @@ import java.util.Map;
  */
 public abstract class OneDReader implements Reader {
 
+  // This reader, followed by readers for other threads, when decoding rows in parallel
+  private OneDReader[] rowDecoders;
+
   @Override
   public Result decode(BinaryBitmap image) throws NotFoundException, FormatException {
     return decode(image, null);
@@ -50,50 +54,56 @@ public abstract class OneDReader implements Reader {
   @Override
   public Result decode(BinaryBitmap image,
                        Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
+    StripeExecutor executor = hints == null ? null : (StripeExecutor) hints.get(DecodeHintType.PARALLEL_ROWS);
+    if (executor != null && executor.getParallelism() > 1) {
+      OneDReader[] decoders = getRowDecoders(executor.getParallelism());
+      if (decoders != null) {
+        return decodeInParallel(image, hints, executor, decoders);
+      }
+    }
     try {
       return doDecode(image, hints);
     } catch (NotFoundException nfe) {
       boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
       if (tryHarder && image.isRotateSupported()) {
         BinaryBitmap rotatedImage = image.rotateCounterClockwise();
-        Result result = doDecode(rotatedImage, hints);
-        // Record that we found it rotated 90 degrees CCW / 270 degrees CW
-        Map<ResultMetadataType,?> metadata = result.getResultMetadata();
-        int orientation = 270;
-        if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
-          // But if we found it reversed in doDecode(), add in that result here:
-          orientation = (orientation +
-              (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
-        }
-        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
-        // Update result points
-        ResultPoint[] points = result.getResultPoints();
-        if (points != null) {
-          int height = rotatedImage.getHeight();
-          for (int i = 0; i < points.length; i++) {
-            points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
-          }
-        }
-        return result;
+        return rotated(doDecode(rotatedImage, hints), rotatedImage.getHeight());
       } else {
         throw nfe;
       }
     }
   }
 
+  /**
+   * Records that a result was found in the image rotated 90 degrees CCW, and maps its points back.
+   */
+  private static Result rotated(Result result, int height) {
+    // Record that we found it rotated 90 degrees CCW / 270 degrees CW
+    Map<ResultMetadataType,?> metadata = result.getResultMetadata();
+    int orientation = 270;
+    if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
+      // But if we found it reversed in doDecode(), add in that result here:
+      orientation = (orientation +
+          (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
+    }
+    result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+    // Update result points
+    ResultPoint[] points = result.getResultPoints();
+    if (points != null) {
+      for (int i = 0; i < points.length; i++) {
+        points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
+      }
+    }
+    return result;
+  }
+
   @Override
   public void reset() {
     // do nothing
   }
 
   /**
-   * We're going to examine rows from the middle outward, searching alternately above and below the
-   * middle, and farther out each time. rowStep is the number of rows between each successive
-   * attempt above and below the middle. So we'd scan row middle, then middle - rowStep, then
-   * middle + rowStep, then middle - (2 * rowStep), etc.
-   * rowStep is bigger as the image is taller, but is always at least 1. We've somewhat arbitrarily
-   * decided that moving up and down by about 1/16 of the image is pretty good; we try more of the
-   * image if "trying harder".
+   * Scans rows, from the middle outward, for a barcode, trying each row both ways.
    *
    * @param image The image to decode
    * @param hints Any hints that were requested
@@ -105,27 +115,10 @@ public abstract class OneDReader implements Reader {
     int width = image.getWidth();
     int height = image.getHeight();
     BitArray row = new BitArray(width);
+    RowRuns runs = new RowRuns();
 
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
-    int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
-    int maxLines;
-    if (tryHarder) {
-      maxLines = height; // Look at the whole image, not just the center
-    } else {
-      maxLines = 15; // 15 rows spaced 1/32 apart is roughly the middle half of the image
-    }
-
-    int middle = height / 2;
-    for (int x = 0; x < maxLines; x++) {
-
-      // Scanning from the middle out. Determine which row we're looking at next:
-      int rowStepsAboveOrBelow = (x + 1) / 2;
-      boolean isAbove = (x & 0x01) == 0; // i.e. is x even?
-      int rowNumber = middle + rowStep * (isAbove ? rowStepsAboveOrBelow : -rowStepsAboveOrBelow);
-      if (rowNumber < 0 || rowNumber >= height) {
-        // Oops, if we run off the top or bottom, stop
-        break;
-      }
+    for (int rowNumber : getRowNumbers(height, tryHarder)) {
 
       // Estimate black point for this row and load it:
       try {
@@ -133,12 +126,13 @@ public abstract class OneDReader implements Reader {
       } catch (NotFoundException ignored) {
         continue;
       }
+      runs.setRow(row);
 
-      // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
-      // handle decoding upside down barcodes.
+      // Once the runs are counted, reading them from the other end handles decoding upside down
+      // barcodes for free.
       for (int attempt = 0; attempt < 2; attempt++) {
         if (attempt == 1) { // trying again?
-          row.reverse(); // reverse the row and continue
+          runs.reverse(); // reverse the row and continue
           // This means we will only ever draw result points *once* in the life of this method
           // since we want to avoid drawing the wrong points after flipping the row, and,
           // don't want to clutter with noise from every single row scan -- just the scans
@@ -152,17 +146,11 @@ public abstract class OneDReader implements Reader {
         }
         try {
           // Look for a barcode
-          Result result = decodeRow(rowNumber, row, hints);
+          Result result = decodeRow(rowNumber, runs, hints);
           // We found our barcode
           if (attempt == 1) {
-            // But it was upside down, so note that
-            result.putMetadata(ResultMetadataType.ORIENTATION, 180);
-            // And remember to flip the result points horizontally.
-            ResultPoint[] points = result.getResultPoints();
-            if (points != null) {
-              points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
-              points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
-            }
+            // But it was upside down
+            upsideDown(result, width);
           }
           return result;
         } catch (ReaderException re) {
@@ -174,6 +162,181 @@ public abstract class OneDReader implements Reader {
     throw NotFoundException.getNotFoundInstance();
   }
 
+  /**
+   * Records that a result was found in a reversed row, and flips its points horizontally.
+   */
+  private static void upsideDown(Result result, int width) {
+    result.putMetadata(ResultMetadataType.ORIENTATION, 180);
+    ResultPoint[] points = result.getResultPoints();
+    if (points != null) {
+      points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
+      points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
+    }
+  }
+
+  /**
+   * We're going to examine rows from the middle outward, searching alternately above and below the
+   * middle, and farther out each time. rowStep is the number of rows between each successive
+   * attempt above and below the middle. So we'd scan row middle, then middle - rowStep, then
+   * middle + rowStep, then middle - (2 * rowStep), etc.
+   * rowStep is bigger as the image is taller, but is always at least 1. We've somewhat arbitrarily
+   * decided that moving up and down by about 1/16 of the image is pretty good; we try more of the
+   * image if "trying harder".
+   *
+   * @param height height of the image
+   * @param tryHarder whether "trying harder"
+   * @return the rows to examine, in order
+   */
+  private static int[] getRowNumbers(int height, boolean tryHarder) {
+    int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
+    int maxLines;
+    if (tryHarder) {
+      maxLines = height; // Look at the whole image, not just the center
+    } else {
+      maxLines = 15; // 15 rows spaced 1/32 apart is roughly the middle half of the image
+    }
+
+    int[] rowNumbers = new int[maxLines];
+    int middle = height / 2;
+    int x = 0;
+    for (; x < maxLines; x++) {
+
+      // Scanning from the middle out. Determine which row we're looking at next:
+      int rowStepsAboveOrBelow = (x + 1) / 2;
+      boolean isAbove = (x & 0x01) == 0; // i.e. is x even?
+      int rowNumber = middle + rowStep * (isAbove ? rowStepsAboveOrBelow : -rowStepsAboveOrBelow);
+      if (rowNumber < 0 || rowNumber >= height) {
+        // Oops, if we run off the top or bottom, stop
+        break;
+      }
+      rowNumbers[x] = rowNumber;
+    }
+    return x == maxLines ? rowNumbers : Arrays.copyOf(rowNumbers, x);
+  }
+
+  /**
+   * <p>Scans the same rows as {@link #doDecode(BinaryBitmap, Map)}, followed by those of the rotated
+   * image when trying harder, but hands them out to the threads of an executor, each decoding them
+   * with its own reader. Rows after the first one a barcode is found in are no longer handed out,
+   * and rows before it are all decoded, so that the result is the one the serial scan finds.</p>
+   *
+   * <p>Each bitmap binarizes one row at a time, and the rotated image is only made once a thread
+   * gets to its rows.</p>
+   */
+  private static Result decodeInParallel(final BinaryBitmap image,
+                                         Map<DecodeHintType,?> hints,
+                                         StripeExecutor executor,
+                                         final OneDReader[] decoders) throws NotFoundException {
+    boolean tryHarder = hints.containsKey(DecodeHintType.TRY_HARDER);
+    final int[] rowNumbers = getRowNumbers(image.getHeight(), tryHarder);
+    // Note that we don't try rotation without the try harder flag, even if rotation was supported.
+    final int[] rotatedRowNumbers = tryHarder && image.isRotateSupported() ?
+        getRowNumbers(image.getWidth(), true) : new int[0];
+    // As in doDecode(), only draw result points for the first row of each image, the right way round
+    final Map<DecodeHintType,?> firstHints = hints;
+    final Map<DecodeHintType,?> otherHints;
+    if (hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
+      Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+      newHints.putAll(hints);
+      newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+      otherHints = newHints;
+    } else {
+      otherHints = hints;
+    }
+
+    final BinaryBitmap[] rotatedImage = new BinaryBitmap[1];
+    final BitArray[] rows = new BitArray[decoders.length];
+    final RowRuns[] runs = new RowRuns[decoders.length];
+    final Result[] results = new Result[rowNumbers.length + rotatedRowNumbers.length];
+    StripeExecutor.executeInOrder(executor, image.getWidth() * image.getHeight(), results.length,
+        new StripeExecutor.OrderedTask() {
+          @Override
+          public boolean run(int unit, int worker) {
+            boolean isRotated = unit >= rowNumbers.length;
+            int index = isRotated ? unit - rowNumbers.length : unit;
+            int rowNumber = isRotated ? rotatedRowNumbers[index] : rowNumbers[index];
+            BinaryBitmap bitmap;
+            synchronized (image) {
+              if (isRotated && rotatedImage[0] == null) {
+                rotatedImage[0] = image.rotateCounterClockwise();
+              }
+              bitmap = isRotated ? rotatedImage[0] : image;
+            }
+            // Estimate black point for this row and load it:
+            try {
+              synchronized (bitmap) {
+                rows[worker] = bitmap.getBlackRow(rowNumber, rows[worker]);
+              }
+            } catch (NotFoundException ignored) {
+              return false;
+            }
+            if (runs[worker] == null) {
+              runs[worker] = new RowRuns();
+            }
+            RowRuns row = runs[worker];
+            row.setRow(rows[worker]);
+
+            for (int attempt = 0; attempt < 2; attempt++) {
+              if (attempt == 1) {
+                row.reverse();
+              }
+              try {
+                Result result = decoders[worker].decodeRow(
+                    rowNumber, row, index == 0 && attempt == 0 ? firstHints : otherHints);
+                if (attempt == 1) {
+                  upsideDown(result, bitmap.getWidth());
+                }
+                results[unit] = isRotated ? rotated(result, bitmap.getHeight()) : result;
+                return true;
+              } catch (ReaderException re) {
+                // continue -- just couldn't decode this row
+              }
+            }
+            return false;
+          }
+        });
+
+    for (Result result : results) {
+      if (result != null) {
+        return result;
+      }
+    }
+    throw NotFoundException.getNotFoundInstance();
+  }
+
+  /**
+   * @param count number of readers needed
+   * @return this reader followed by readers for other threads to decode rows with, or null if
+   *  this reader cannot provide any
+   */
+  private OneDReader[] getRowDecoders(int count) {
+    if (rowDecoders == null || rowDecoders.length < count) {
+      OneDReader[] decoders = new OneDReader[count];
+      decoders[0] = this;
+      for (int i = 1; i < count; i++) {
+        decoders[i] = rowDecoders != null && i < rowDecoders.length ? rowDecoders[i] : newRowDecoder();
+        if (decoders[i] == null) {
+          return null;
+        }
+      }
+      rowDecoders = decoders;
+    }
+    return rowDecoders;
+  }
+
+  /**
+   * <p>Makes a reader for another thread to decode rows with, at the same time as this one, when
+   * decoding with {@link DecodeHintType#PARALLEL_ROWS}. Readers which keep nothing from one row to
+   * the next can return a new instance with the same settings. Readers which pair up rows, or
+   * otherwise need to see every row themselves, return null, and then rows are decoded one at a
+   * time.</p>
+   *
+   * @return a new reader decoding rows as this one does, or null
+   */
+  protected OneDReader newRowDecoder() {
+    return null;
+  }
+
   /**
    * Records the size of successive runs of white and black pixels in a row, starting at a given point.
    * The values are recorded in the given array, and the number of runs recorded is equal to the size
@@ -219,6 +382,26 @@ public abstract class OneDReader implements Reader {
     }
   }
 
+  /**
+   * Like {@link #recordPattern(BitArray, int, int[])}, but reads the counts off runs already
+   * counted.
+   *
+   * @param row runs of row to count from
+   * @param start offset into row to start at
+   * @param counters array into which to record counts
+   * @throws NotFoundException if counters cannot be filled entirely from row before running out
+   *  of pixels
+   */
+  protected static void recordPattern(RowRuns row,
+                                      int start,
+                                      int[] counters) throws NotFoundException {
+    int run = row.getRun(start);
+    if (run + counters.length > row.getNumRuns()) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    row.recordRuns(run, start, counters);
+  }
+
   protected static void recordPatternInReverse(BitArray row, int start, int[] counters)
       throws NotFoundException {
     // This could be more efficient I guess
@@ -236,6 +419,24 @@ public abstract class OneDReader implements Reader {
     recordPattern(row, start + 1, counters);
   }
 
+  /**
+   * Records the size of the runs just before the run containing start, in the order they appear.
+   * There must be at least one more run before them.
+   *
+   * @param row runs of row to count from
+   * @param start offset into row of the run to count back from
+   * @param counters array into which to record counts
+   * @throws NotFoundException if there are not enough runs before start
+   */
+  protected static void recordPatternInReverse(RowRuns row, int start, int[] counters)
+      throws NotFoundException {
+    int run = row.getRun(start) - counters.length;
+    if (run < 1) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    row.recordRuns(run, row.getRunStart(run), counters);
+  }
+
   /**
    * Determines how closely a set of observed counts of runs of black/white values matches a given
    * target pattern. This is reported as the ratio of the total variance from the expected pattern
@@ -290,7 +491,25 @@ public abstract class OneDReader implements Reader {
    * @throws ChecksumException if a potential barcode is found but does not pass its checksum
    * @throws FormatException if a potential barcode is found but format is invalid
    */
-  public abstract Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+  public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    return decodeRow(rowNumber, new RowRuns(row), hints);
+  }
+
+  /**
+   * <p>Like {@link #decodeRow(int, BitArray, Map)}, but with the runs of the row already counted,
+   * so that they can be counted once and shared by the readers tried on a row, in both
+   * directions. Implementations leave row read from the end it was read from when called.</p>
+   *
+   * @param rowNumber row number from top of the row
+   * @param row the runs of black/white pixels of the row
+   * @param hints decode hints
+   * @return {@link Result} containing encoded string and start/end of barcode
+   * @throws NotFoundException if no potential barcode is found
+   * @throws ChecksumException if a potential barcode is found but does not pass its checksum
+   * @throws FormatException if a potential barcode is found but format is invalid
+   */
+  public abstract Result decodeRow(int rowNumber, RowRuns row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException;
 
 }
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import java.util.Arrays;
+
+/**
+ * <p>Finds which of a symbology's patterns a set of counters matches best, as comparing them with
+ * each pattern in turn through {@link OneDReader#patternMatchVariance(int[], int[], float)} does,
+ * but mostly without doing so.</p>
+ *
+ * <p>Patterns are grouped by their total width in modules. For each group, the counters are
+ * scaled to that width and rounded to whole modules, in integers, which gives a key into a table
+ * of the group's patterns. When every counter is clearly closer to its rounded width than to the
+ * next, the pattern found there, if any, varies strictly less from the counters than any other
+ * of the group, by a margin far larger than float rounding; so only it is measured, with the
+ * same variance as before. Counters halfway between widths, or rounding to no pattern, fall back
+ * to comparing with every pattern. Either way the same counters are accepted, as the same
+ * pattern.</p>
+ *
+ * @see OneDReader#patternMatchVariance(int[], int[], float)
+ */
+final class PatternClassifier {
+
+  // Counters within this fraction of a module of their rounded width are clearly closer to it
+  // than to the next. Each element differing from another pattern then adds at least
+  // 1 - 2 * 31/64 = 1/32 of a module to that pattern's variance.
+  private static final int ROUNDING_MARGIN_NUMERATOR = 31;
+  private static final int ROUNDING_MARGIN_DENOMINATOR = 64;
+
+  private final int[][] patterns;
+  private final float maxAvgVariance;
+  private final float maxIndividualVariance;
+  private final boolean rejectTies;
+  private final int numCounters;
+  // Largest width of an element of any pattern, plus one: the base of the keys
+  private final int base;
+  // Total width of the patterns of each group
+  private final int[] groupWidths;
+  // For each group, the index of the pattern with each key, or -1
+  private final int[][] groupTables;
+
+  /**
+   * @param patterns the distinct patterns to tell apart, all with at least as many elements as the
+   *  first, of which as many are compared, and of at most two total widths
+   * @param maxAvgVariance the variance a match must be below
+   * @param maxIndividualVariance the most any counter can differ, as for
+   *  {@link OneDReader#patternMatchVariance(int[], int[], float)}; at least half a module
+   * @param rejectTies if true, two patterns matching equally well are no match at all; otherwise
+   *  the first of them is the match
+   */
+  PatternClassifier(int[][] patterns, float maxAvgVariance, float maxIndividualVariance, boolean rejectTies) {
+    if (maxIndividualVariance < 0.5f) {
+      throw new IllegalArgumentException("Individual variance must be at least half a module");
+    }
+    this.patterns = patterns;
+    this.maxAvgVariance = maxAvgVariance;
+    this.maxIndividualVariance = maxIndividualVariance;
+    this.rejectTies = rejectTies;
+    numCounters = patterns[0].length;
+
+    int maxWidth = 0;
+    int[] widths = new int[patterns.length];
+    int numGroups = 0;
+    int[] groupWidths = new int[patterns.length];
+    for (int i = 0; i < patterns.length; i++) {
+      // As in patternMatchVariance(), only as many elements as there are counters count
+      for (int j = 0; j < numCounters; j++) {
+        maxWidth = Math.max(maxWidth, patterns[i][j]);
+        widths[i] += patterns[i][j];
+      }
+      if (indexOf(groupWidths, numGroups, widths[i]) < 0) {
+        groupWidths[numGroups++] = widths[i];
+      }
+    }
+    if (numGroups > 2) {
+      throw new IllegalArgumentException("Patterns must have at most two total widths");
+    }
+    base = maxWidth + 1;
+    this.groupWidths = Arrays.copyOf(groupWidths, numGroups);
+
+    int tableSize = 1;
+    for (int i = 0; i < numCounters; i++) {
+      tableSize *= base;
+    }
+    groupTables = new int[numGroups][tableSize];
+    for (int[] table : groupTables) {
+      Arrays.fill(table, -1);
+    }
+    for (int i = 0; i < patterns.length; i++) {
+      int[] pattern = patterns[i];
+      int key = 0;
+      for (int j = numCounters - 1; j >= 0; j--) {
+        key = key * base + pattern[j];
+      }
+      int[] table = groupTables[indexOf(this.groupWidths, numGroups, widths[i])];
+      if (table[key] >= 0) {
+        throw new IllegalArgumentException("Patterns must be distinct");
+      }
+      table[key] = i;
+    }
+  }
+
+  private static int indexOf(int[] values, int length, int value) {
+    for (int i = 0; i < length; i++) {
+      if (values[i] == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param counters observed counters, as many as the patterns have elements
+   * @return index of the pattern matching best, with a variance below the maximum, or -1 if none
+   */
+  int classify(int[] counters) {
+    int total = 0;
+    for (int i = 0; i < numCounters; i++) {
+      total += counters[i];
+    }
+
+    // Indices of the patterns looked up in the groups, lowest first
+    int first = Integer.MAX_VALUE;
+    int second = Integer.MAX_VALUE;
+    for (int g = 0; g < groupWidths.length; g++) {
+      int width = groupWidths[g];
+      if (total < width) {
+        // Too small to match any pattern of the group at all
+        continue;
+      }
+      int key = 0;
+      for (int i = numCounters - 1; i >= 0; i--) {
+        int scaled = counters[i] * width;
+        // Round to the nearest whole module, then check it is clearly the nearest
+        int modules = (2 * scaled + total) / (2 * total);
+        if (modules == 0 || modules >= base ||
+            Math.abs(scaled - modules * total) * ROUNDING_MARGIN_DENOMINATOR > ROUNDING_MARGIN_NUMERATOR * total) {
+          return classifyAll(counters);
+        }
+        key = key * base + modules;
+      }
+      int index = groupTables[g][key];
+      if (index < 0) {
+        return classifyAll(counters);
+      }
+      if (index < first) {
+        second = first;
+        first = index;
+      } else {
+        second = Math.min(second, index);
+      }
+    }
+
+    // Only the patterns looked up can match best; compare them as classifyAll() would
+    float bestVariance = maxAvgVariance;
+    int bestMatch = -1;
+    for (int candidate = 0; candidate < 2; candidate++) {
+      int index = candidate == 0 ? first : second;
+      if (index == Integer.MAX_VALUE) {
+        break;
+      }
+      float variance = OneDReader.patternMatchVariance(counters, patterns[index], maxIndividualVariance);
+      if (variance < bestVariance) {
+        bestVariance = variance;
+        bestMatch = index;
+      } else if (rejectTies && variance == bestVariance) {
+        bestMatch = -1;
+      }
+    }
+    return bestMatch;
+  }
+
+  /**
+   * Compares counters with every pattern.
+   */
+  int classifyAll(int[] counters) {
+    float bestVariance = maxAvgVariance; // worst variance we'll accept
+    int bestMatch = -1;
+    for (int i = 0; i < patterns.length; i++) {
+      float variance = OneDReader.patternMatchVariance(counters, patterns[i], maxIndividualVariance);
+      if (variance < bestVariance) {
+        bestVariance = variance;
+        bestMatch = i;
+      } else if (rejectTies && variance == bestVariance) {
+        // if we find a second 'best match' with the same variance, we can not reliably report to have a suitable match
+        bestMatch = -1;
+      }
+    }
+    return bestMatch;
+  }
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.common.BitArray;
+
+/**
+ * <p>A row of black and white pixels as the runs of pixels of one color it is made of. The runs
+ * are counted once, with word-at-a-time scans of the {@link BitArray}, and then every reader tried
+ * on the row searches it run by run rather than pixel by pixel.</p>
+ *
+ * <p>The row can be turned around in place with {@link #reverse()}, which only changes which end
+ * it is read from. Offsets are always pixel offsets into the row as currently read, as they would
+ * be into a reversed {@link BitArray}.</p>
+ *
+ * @see OneDReader#decodeRow(int, RowRuns, java.util.Map)
+ */
+public final class RowRuns {
+
+  private int size;
+  // End of each run, exclusive, from the left of the row as it was set
+  private int[] ends;
+  private int numRuns;
+  // Whether the leftmost run of the row as it was set is black
+  private boolean firstIsBlack;
+  private boolean reversed;
+
+  public RowRuns() {
+    ends = new int[0];
+  }
+
+  public RowRuns(BitArray row) {
+    this();
+    setRow(row);
+  }
+
+  /**
+   * Counts the runs of a row, replacing the row counted before. The row is read from the left.
+   *
+   * @param row the black/white pixel data of the row
+   */
+  public void setRow(BitArray row) {
+    int size = row.getSize();
+    if (ends.length < size) {
+      ends = new int[size];
+    }
+    boolean black = size > 0 && row.get(0);
+    firstIsBlack = black;
+    int numRuns = 0;
+    int end = 0;
+    while (end < size) {
+      end = black ? row.getNextUnset(end) : row.getNextSet(end);
+      ends[numRuns++] = end;
+      black = !black;
+    }
+    this.size = size;
+    this.numRuns = numRuns;
+    reversed = false;
+  }
+
+  /**
+   * Turns the row around, so that it is read from the other end.
+   */
+  public void reverse() {
+    reversed = !reversed;
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public int getNumRuns() {
+    return numRuns;
+  }
+
+  /**
+   * @param offset pixel offset into the row
+   * @return index of the run containing offset, or {@link #getNumRuns()} if offset is past the end
+   *  of the row
+   */
+  public int getRun(int offset) {
+    if (offset >= size) {
+      return numRuns;
+    }
+    if (reversed) {
+      offset = size - 1 - offset;
+    }
+    // First run ending after offset
+    int low = 0;
+    int high = numRuns - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ends[middle] > offset) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return reversed ? numRuns - 1 - low : low;
+  }
+
+  /**
+   * @param run index of run
+   * @return offset of first pixel of the run
+   */
+  public int getRunStart(int run) {
+    if (reversed) {
+      return size - ends[numRuns - 1 - run];
+    }
+    return run == 0 ? 0 : ends[run - 1];
+  }
+
+  /**
+   * @param run index of run
+   * @return offset of first pixel past the run
+   */
+  public int getRunEnd(int run) {
+    if (reversed) {
+      int forward = numRuns - 1 - run;
+      return forward == 0 ? size : size - ends[forward - 1];
+    }
+    return ends[run];
+  }
+
+  public int getRunLength(int run) {
+    int forward = reversed ? numRuns - 1 - run : run;
+    return forward == 0 ? ends[0] : ends[forward] - ends[forward - 1];
+  }
+
+  public boolean isBlack(int run) {
+    int forward = reversed ? numRuns - 1 - run : run;
+    return firstIsBlack ^ ((forward & 0x01) != 0);
+  }
+
+  /**
+   * Records the lengths of successive runs, as {@link OneDReader#recordPattern(RowRuns, int, int[])}
+   * does, without checking that the row has enough of them.
+   *
+   * @param run index of first run to record
+   * @param start offset into the first run to count it from
+   * @param counters array into which to record lengths; the row must have as many runs from run on
+   */
+  public void recordRuns(int run, int start, int[] counters) {
+    counters[0] = getRunEnd(run) - start;
+    for (int i = 1; i < counters.length; i++) {
+      counters[i] = getRunLength(run + i);
+    }
+  }
+
+  /**
+   * @param i pixel to get
+   * @return true iff pixel i is black
+   */
+  public boolean get(int i) {
+    int run = getRun(i);
+    return run < numRuns && isBlack(run);
+  }
+
+  /**
+   * @param from first pixel to check
+   * @return offset of first black pixel, starting from the given offset, or size if there is none
+   * @see BitArray#getNextSet(int)
+   */
+  public int getNextSet(int from) {
+    int run = getRun(from);
+    if (run == numRuns) {
+      return size;
+    }
+    return isBlack(run) ? from : getRunEnd(run);
+  }
+
+  /**
+   * @param from first pixel to check
+   * @return offset of first white pixel, starting from the given offset, or size if there is none
+   * @see BitArray#getNextUnset(int)
+   */
+  public int getNextUnset(int from) {
+    int run = getRun(from);
+    if (run == numRuns) {
+      return size;
+    }
+    return isBlack(run) ? getRunEnd(run) : from;
+  }
+
+  /**
+   * @param start start of range, inclusive.
+   * @param end end of range, exclusive
+   * @param value if true, checks that pixels in range are black, otherwise checks that they are white
+   * @return true iff all pixels in range are black or white, according to value argument
+   * @throws IllegalArgumentException if end is less than start or the range is not contained in the row
+   * @see BitArray#isRange(int, int, boolean)
+   */
+  public boolean isRange(int start, int end, boolean value) {
+    if (end < start || start < 0 || end > size) {
+      throw new IllegalArgumentException();
+    }
+    if (end == start) {
+      return true; // empty range matches
+    }
+    int run = getRun(start);
+    return isBlack(run) == value && getRunEnd(run) >= end;
+  }
+
+}
@@ -23,7 +23,6 @@ import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
-import com.google.zxing.common.BitArray;
 
 import java.util.Map;
 
@@ -37,9 +36,14 @@ public final class UPCAReader extends UPCEANReader {
 
   private final UPCEANReader ean13Reader = new EAN13Reader();
 
+  @Override
+  protected OneDReader newRowDecoder() {
+    return new UPCAReader();
+  }
+
   @Override
   public Result decodeRow(int rowNumber,
-                          BitArray row,
+                          RowRuns row,
                           int[] startGuardRange,
                           Map<DecodeHintType,?> hints)
       throws NotFoundException, FormatException, ChecksumException {
@@ -47,7 +51,7 @@ public final class UPCAReader extends UPCEANReader {
   }
 
   @Override
-  public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+  public Result decodeRow(int rowNumber, RowRuns row, Map<DecodeHintType,?> hints)
       throws NotFoundException, FormatException, ChecksumException {
     return maybeReturnResult(ean13Reader.decodeRow(rowNumber, row, hints));
   }
@@ -69,7 +73,7 @@ public final class UPCAReader extends UPCEANReader {
   }
 
   @Override
-  protected int decodeMiddle(BitArray row, int[] startRange, StringBuilder resultString)
+  protected int decodeMiddle(RowRuns row, int[] startRange, StringBuilder resultString)
       throws NotFoundException {
     return ean13Reader.decodeMiddle(row, startRange, resultString);
   }
@@ -94,6 +94,11 @@ public abstract class UPCEANReader extends OneDReader {
     }
   }
 
+  static final PatternClassifier L_CLASSIFIER =
+      new PatternClassifier(L_PATTERNS, MAX_AVG_VARIANCE, MAX_INDIVIDUAL_VARIANCE, false);
+  static final PatternClassifier L_AND_G_CLASSIFIER =
+      new PatternClassifier(L_AND_G_PATTERNS, MAX_AVG_VARIANCE, MAX_INDIVIDUAL_VARIANCE, false);
+
   private final StringBuilder decodeRowStringBuffer;
   private final UPCEANExtensionSupport extensionReader;
   private final EANManufacturerOrgSupport eanManSupport;
@@ -104,7 +109,7 @@ public abstract class UPCEANReader extends OneDReader {
     eanManSupport = new EANManufacturerOrgSupport();
   }
 
-  static int[] findStartGuardPattern(BitArray row) throws NotFoundException {
+  static int[] findStartGuardPattern(RowRuns row) throws NotFoundException {
     boolean foundStart = false;
     int[] startRange = null;
     int nextStart = 0;
@@ -126,7 +131,7 @@ public abstract class UPCEANReader extends OneDReader {
   }
 
   @Override
-  public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+  public Result decodeRow(int rowNumber, RowRuns row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
     return decodeRow(rowNumber, row, findStartGuardPattern(row), hints);
   }
@@ -150,6 +155,27 @@ public abstract class UPCEANReader extends OneDReader {
                           int[] startGuardRange,
                           Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    return decodeRow(rowNumber, new RowRuns(row), startGuardRange, hints);
+  }
+
+  /**
+   * <p>Like {@link #decodeRow(int, BitArray, int[], Map)}, but with the runs of the row already
+   * counted.</p>
+   *
+   * @param rowNumber row index into the image
+   * @param row runs of the row of the barcode image
+   * @param startGuardRange start/end column where the opening start pattern was found
+   * @param hints optional hints that influence decoding
+   * @return {@link Result} encapsulating the result of decoding a barcode in the row
+   * @throws NotFoundException if no potential barcode is found
+   * @throws ChecksumException if a potential barcode is found but does not pass its checksum
+   * @throws FormatException if a potential barcode is found but format is invalid
+   */
+  public Result decodeRow(int rowNumber,
+                          RowRuns row,
+                          int[] startGuardRange,
+                          Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
 
     ResultPointCallback resultPointCallback = hints == null ? null :
         (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
@@ -290,11 +316,11 @@ public abstract class UPCEANReader extends OneDReader {
     return (1000 - sum) % 10;
   }
 
-  int[] decodeEnd(BitArray row, int endStart) throws NotFoundException {
+  int[] decodeEnd(RowRuns row, int endStart) throws NotFoundException {
     return findGuardPattern(row, endStart, false, START_END_PATTERN);
   }
 
-  static int[] findGuardPattern(BitArray row,
+  static int[] findGuardPattern(RowRuns row,
                                 int rowOffset,
                                 boolean whiteFirst,
                                 int[] pattern) throws NotFoundException {
@@ -312,36 +338,22 @@ public abstract class UPCEANReader extends OneDReader {
    * @return start/end horizontal offset of guard pattern, as an array of two ints
    * @throws NotFoundException if pattern is not found
    */
-  private static int[] findGuardPattern(BitArray row,
+  private static int[] findGuardPattern(RowRuns row,
                                         int rowOffset,
                                         boolean whiteFirst,
                                         int[] pattern,
                                         int[] counters) throws NotFoundException {
-    int width = row.getSize();
     rowOffset = whiteFirst ? row.getNextUnset(rowOffset) : row.getNextSet(rowOffset);
-    int counterPosition = 0;
     int patternStart = rowOffset;
     int patternLength = pattern.length;
-    boolean isWhite = whiteFirst;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
-            return new int[]{patternStart, x};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+    int numRuns = row.getNumRuns();
+    // Try each run of the first color in turn, once the run after the pattern has begun
+    for (int run = row.getRun(rowOffset); run + patternLength < numRuns; run += 2) {
+      row.recordRuns(run, patternStart, counters);
+      if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
+        return new int[]{patternStart, row.getRunStart(run + patternLength)};
       }
+      patternStart = row.getRunStart(run + 2);
     }
     throw NotFoundException.getNotFoundInstance();
   }
@@ -352,26 +364,16 @@ public abstract class UPCEANReader extends OneDReader {
    * @param row row of black/white values to decode
    * @param counters the counts of runs of observed black/white/black/... values
    * @param rowOffset horizontal offset to start decoding from
-   * @param patterns the set of patterns to use to decode -- sometimes different encodings
-   * for the digits 0-9 are used, and this indicates the encodings for 0 to 9 that should
-   * be used
+   * @param patterns classifier of the set of patterns to use to decode -- sometimes different
+   * encodings for the digits 0-9 are used, and this indicates the encodings for 0 to 9 that
+   * should be used: {@link #L_CLASSIFIER} or {@link #L_AND_G_CLASSIFIER}
    * @return horizontal offset of first pixel beyond the decoded digit
    * @throws NotFoundException if digit cannot be decoded
    */
-  static int decodeDigit(BitArray row, int[] counters, int rowOffset, int[][] patterns)
+  static int decodeDigit(RowRuns row, int[] counters, int rowOffset, PatternClassifier patterns)
       throws NotFoundException {
     recordPattern(row, rowOffset, counters);
-    float bestVariance = MAX_AVG_VARIANCE; // worst variance we'll accept
-    int bestMatch = -1;
-    int max = patterns.length;
-    for (int i = 0; i < max; i++) {
-      int[] pattern = patterns[i];
-      float variance = patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE);
-      if (variance < bestVariance) {
-        bestVariance = variance;
-        bestMatch = i;
-      }
-    }
+    int bestMatch = patterns.classify(counters);
     if (bestMatch >= 0) {
       return bestMatch;
     } else {
@@ -396,7 +398,7 @@ public abstract class UPCEANReader extends OneDReader {
    * @return horizontal offset of first pixel after the "middle" that was decoded
    * @throws NotFoundException if decoding could not complete successfully
    */
-  protected abstract int decodeMiddle(BitArray row,
+  protected abstract int decodeMiddle(RowRuns row,
                                       int[] startRange,
                                       StringBuilder resultString) throws NotFoundException;
 
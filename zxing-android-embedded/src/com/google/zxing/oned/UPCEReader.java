@@ -19,7 +19,6 @@ package com.google.zxing.oned;
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.common.BitArray;
 
 /**
  * <p>Implements decoding of the UPC-E format.</p>
@@ -77,7 +76,12 @@ public final class UPCEReader extends UPCEANReader {
   }
 
   @Override
-  protected int decodeMiddle(BitArray row, int[] startRange, StringBuilder result)
+  protected OneDReader newRowDecoder() {
+    return new UPCEReader();
+  }
+
+  @Override
+  protected int decodeMiddle(RowRuns row, int[] startRange, StringBuilder result)
       throws NotFoundException {
     int[] counters = decodeMiddleCounters;
     counters[0] = 0;
@@ -90,7 +94,7 @@ public final class UPCEReader extends UPCEANReader {
     int lgPatternFound = 0;
 
     for (int x = 0; x < 6 && rowOffset < end; x++) {
-      int bestMatch = decodeDigit(row, counters, rowOffset, L_AND_G_PATTERNS);
+      int bestMatch = decodeDigit(row, counters, rowOffset, L_AND_G_CLASSIFIER);
       result.append((char) ('0' + bestMatch % 10));
       for (int counter : counters) {
         rowOffset += counter;
@@ -106,7 +110,7 @@ public final class UPCEReader extends UPCEANReader {
   }
 
   @Override
-  protected int[] decodeEnd(BitArray row, int endStart) throws NotFoundException {
+  protected int[] decodeEnd(RowRuns row, int endStart) throws NotFoundException {
     return findGuardPattern(row, endStart, true, MIDDLE_END_PATTERN);
   }
 
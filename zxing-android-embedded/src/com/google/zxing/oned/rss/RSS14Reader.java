@@ -22,8 +22,8 @@ import com.google.zxing.NotFoundException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
-import com.google.zxing.common.BitArray;
 import com.google.zxing.common.detector.MathUtils;
+import com.google.zxing.oned.RowRuns;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -64,7 +64,7 @@ public final class RSS14Reader extends AbstractRSSReader {
 
   @Override
   public Result decodeRow(int rowNumber,
-                          BitArray row,
+                          RowRuns row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
     Pair leftPair = decodePair(row, false, rowNumber, hints);
     addOrTally(possibleLeftPairs, leftPair);
@@ -155,7 +155,7 @@ public final class RSS14Reader extends AbstractRSSReader {
     return checkValue == targetCheckValue;
   }
 
-  private Pair decodePair(BitArray row, boolean right, int rowNumber, Map<DecodeHintType,?> hints) {
+  private Pair decodePair(RowRuns row, boolean right, int rowNumber, Map<DecodeHintType,?> hints) {
     try {
       int[] startEnd = findFinderPattern(row, right);
       FinderPattern pattern = parseFoundFinderPattern(row, rowNumber, right, startEnd);
@@ -182,7 +182,7 @@ public final class RSS14Reader extends AbstractRSSReader {
     }
   }
 
-  private DataCharacter decodeDataCharacter(BitArray row, FinderPattern pattern, boolean outsideChar)
+  private DataCharacter decodeDataCharacter(RowRuns row, FinderPattern pattern, boolean outsideChar)
       throws NotFoundException {
 
     int[] counters = getDataCharacterCounters();
@@ -274,64 +274,34 @@ public final class RSS14Reader extends AbstractRSSReader {
 
   }
 
-  private int[] findFinderPattern(BitArray row, boolean rightFinderPattern)
+  private int[] findFinderPattern(RowRuns row, boolean rightFinderPattern)
       throws NotFoundException {
 
     int[] counters = getDecodeFinderCounters();
-    counters[0] = 0;
-    counters[1] = 0;
-    counters[2] = 0;
-    counters[3] = 0;
-
-    int width = row.getSize();
-    boolean isWhite = false;
-    int rowOffset = 0;
-    while (rowOffset < width) {
-      isWhite = !row.get(rowOffset);
-      if (rightFinderPattern == isWhite) {
-        // Will encounter white first when searching for right finder pattern
-        break;
-      }
-      rowOffset++;
-    }
-
-    int counterPosition = 0;
-    int patternStart = rowOffset;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == 3) {
-          if (isFinderPattern(counters)) {
-            return new int[]{patternStart, x};
-          }
-          patternStart += counters[0] + counters[1];
-          counters[0] = counters[2];
-          counters[1] = counters[3];
-          counters[2] = 0;
-          counters[3] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+    int numRuns = row.getNumRuns();
+
+    // Will encounter white first when searching for right finder pattern
+    int rowOffset = rightFinderPattern ? row.getNextUnset(0) : row.getNextSet(0);
+    for (int run = row.getRun(rowOffset); run + 4 < numRuns; run += 2) {
+      int patternStart = row.getRunStart(run);
+      row.recordRuns(run, patternStart, counters);
+      if (isFinderPattern(counters)) {
+        return new int[]{patternStart, row.getRunStart(run + 4)};
       }
     }
     throw NotFoundException.getNotFoundInstance();
 
   }
 
-  private FinderPattern parseFoundFinderPattern(BitArray row, int rowNumber, boolean right, int[] startEnd)
+  private FinderPattern parseFoundFinderPattern(RowRuns row, int rowNumber, boolean right, int[] startEnd)
       throws NotFoundException {
     // Actually we found elements 2-5
     boolean firstIsBlack = row.get(startEnd[0]);
-    int firstElementStart = startEnd[0] - 1;
+    int firstElementStart = startEnd[0];
     // Locate element 1
-    while (firstElementStart >= 0 && firstIsBlack != row.get(firstElementStart)) {
-      firstElementStart--;
+    if (firstElementStart > 0 && firstIsBlack != row.get(firstElementStart - 1)) {
+      firstElementStart = row.getRunStart(row.getRun(firstElementStart - 1));
     }
-    firstElementStart++;
     int firstCounter = startEnd[0] - firstElementStart;
     // Make 'counters' hold 1-4
     int[] counters = getDecodeFinderCounters();
@@ -34,6 +34,7 @@ import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
 import com.google.zxing.common.detector.MathUtils;
+import com.google.zxing.oned.RowRuns;
 import com.google.zxing.oned.rss.AbstractRSSReader;
 import com.google.zxing.oned.rss.DataCharacter;
 import com.google.zxing.oned.rss.FinderPattern;
@@ -120,7 +121,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
 
   @Override
   public Result decodeRow(int rowNumber,
-                          BitArray row,
+                          RowRuns row,
                           Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
     // Rows can start with even pattern in case in prev rows there where odd number of patters.
     // So lets try twice
@@ -144,7 +145,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   }
 
   // Not private for testing
-  List<ExpandedPair> decodeRow2pairs(int rowNumber, BitArray row) throws NotFoundException {
+  List<ExpandedPair> decodeRow2pairs(int rowNumber, RowRuns row) throws NotFoundException {
     try {
       while (true) {
         ExpandedPair nextPair = retrieveNextPair(row, this.pairs, rowNumber);
@@ -403,7 +404,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     return checkCharacterValue == checkCharacter.getValue();
   }
 
-  private static int getNextSecondBar(BitArray row, int initialPos) {
+  private static int getNextSecondBar(RowRuns row, int initialPos) {
     int currentPos;
     if (row.get(initialPos)) {
       currentPos = row.getNextUnset(initialPos);
@@ -416,7 +417,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
   }
 
   // not private for testing
-  ExpandedPair retrieveNextPair(BitArray row, List<ExpandedPair> previousPairs, int rowNumber)
+  ExpandedPair retrieveNextPair(RowRuns row, List<ExpandedPair> previousPairs, int rowNumber)
       throws NotFoundException {
     boolean isOddPattern  = previousPairs.size() % 2 == 0;
     if (startFromEven) {
@@ -455,15 +456,10 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     return new ExpandedPair(leftChar, rightChar, pattern, true);
   }
 
-  private void findNextPair(BitArray row, List<ExpandedPair> previousPairs, int forcedOffset)
+  private void findNextPair(RowRuns row, List<ExpandedPair> previousPairs, int forcedOffset)
       throws NotFoundException {
     int[] counters = this.getDecodeFinderCounters();
-    counters[0] = 0;
-    counters[1] = 0;
-    counters[2] = 0;
-    counters[3] = 0;
-
-    int width = row.getSize();
+    int numRuns = row.getNumRuns();
 
     int rowOffset;
     if (forcedOffset >= 0) {
@@ -479,48 +475,20 @@ public final class RSSExpandedReader extends AbstractRSSReader {
       searchingEvenPair = !searchingEvenPair;
     }
 
-    boolean isWhite = false;
-    while (rowOffset < width) {
-      isWhite = !row.get(rowOffset);
-      if (!isWhite) {
-        break;
-      }
-      rowOffset++;
-    }
-
-    int counterPosition = 0;
+    rowOffset = row.getNextSet(rowOffset);
     int patternStart = rowOffset;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == 3) {
-          if (searchingEvenPair) {
-            reverseCounters(counters);
-          }
-
-          if (isFinderPattern(counters)) {
-            this.startEnd[0] = patternStart;
-            this.startEnd[1] = x;
-            return;
-          }
-
-          if (searchingEvenPair) {
-            reverseCounters(counters);
-          }
+    for (int run = row.getRun(rowOffset); run + 4 < numRuns; run += 2) {
+      row.recordRuns(run, patternStart, counters);
+      if (searchingEvenPair) {
+        reverseCounters(counters);
+      }
 
-          patternStart += counters[0] + counters[1];
-          counters[0] = counters[2];
-          counters[1] = counters[3];
-          counters[2] = 0;
-          counters[3] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+      if (isFinderPattern(counters)) {
+        this.startEnd[0] = patternStart;
+        this.startEnd[1] = row.getRunStart(run + 4);
+        return;
       }
+      patternStart = row.getRunStart(run + 2);
     }
     throw NotFoundException.getNotFoundInstance();
   }
@@ -534,7 +502,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     }
   }
 
-  private FinderPattern parseFoundFinderPattern(BitArray row, int rowNumber, boolean oddPattern) {
+  private FinderPattern parseFoundFinderPattern(RowRuns row, int rowNumber, boolean oddPattern) {
     // Actually we found elements 2-5.
     int firstCounter;
     int start;
@@ -543,13 +511,12 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     if (oddPattern) {
       // If pattern number is odd, we need to locate element 1 *before* the current block.
 
-      int firstElementStart = this.startEnd[0] - 1;
+      int firstElementStart = this.startEnd[0];
       // Locate element 1
-      while (firstElementStart >= 0 && !row.get(firstElementStart)) {
-        firstElementStart--;
+      if (firstElementStart > 0 && !row.get(firstElementStart - 1)) {
+        firstElementStart = row.getRunStart(row.getRun(firstElementStart - 1));
       }
 
-      firstElementStart++;
       firstCounter = this.startEnd[0] - firstElementStart;
       start = firstElementStart;
       end = this.startEnd[1];
@@ -577,7 +544,7 @@ public final class RSSExpandedReader extends AbstractRSSReader {
     return new FinderPattern(value, new int[] {start, end}, start, end, rowNumber);
   }
 
-  DataCharacter decodeDataCharacter(BitArray row,
+  DataCharacter decodeDataCharacter(RowRuns row,
                                     FinderPattern pattern,
                                     boolean isOddPattern,
                                     boolean leftChar) throws NotFoundException {
@@ -19,6 +19,8 @@ package com.google.zxing.pdf417.decoder;
 import com.google.zxing.common.detector.MathUtils;
 import com.google.zxing.pdf417.PDF417Common;
 
+import java.util.Arrays;
+
 /**
  * @author Guenther Grau
  * @author creatale GmbH (christoph.schulz@creatale.de)
@@ -28,8 +30,24 @@ final class PDF417CodewordDecoder {
   private static final float[][] RATIOS_TABLE =
       new float[PDF417Common.SYMBOL_TABLE.length][PDF417Common.BARS_IN_MODULE];
 
+  // The symbols sorted by the widths of their bars, first bar first, make a tree in which each
+  // node is the range of symbols with the same widths up to some bar. getClosestDecodedValue()
+  // searches it rather than every symbol.
+
+  // Indices into RATIOS_TABLE of the sorted symbols
+  private static final int[] SORTED_SYMBOLS = new int[PDF417Common.SYMBOL_TABLE.length];
+  // Width of each bar of the sorted symbols, in modules
+  private static final int[][] SORTED_WIDTHS =
+      new int[PDF417Common.BARS_IN_MODULE][PDF417Common.SYMBOL_TABLE.length];
+  // For each bar and sorted symbol, end of the range of symbols with the same widths up to that bar
+  private static final int[][] SORTED_RANGE_ENDS =
+      new int[PDF417Common.BARS_IN_MODULE][PDF417Common.SYMBOL_TABLE.length];
+  // Ratio of a bar of each width, as in RATIOS_TABLE
+  private static final float[] BAR_RATIOS = new float[PDF417Common.MODULES_IN_CODEWORD + 1];
+
   static {
     // Pre-computes the symbol ratio table.
+    long[] sortKeys = new long[PDF417Common.SYMBOL_TABLE.length];
     for (int i = 0; i < PDF417Common.SYMBOL_TABLE.length; i++) {
       int currentSymbol = PDF417Common.SYMBOL_TABLE[i];
       int currentBit = currentSymbol & 0x1;
@@ -42,6 +60,31 @@ final class PDF417CodewordDecoder {
         currentBit = currentSymbol & 0x1;
         RATIOS_TABLE[i][PDF417Common.BARS_IN_MODULE - j - 1] = size / PDF417Common.MODULES_IN_CODEWORD;
       }
+      // Widths, first bar most significant, followed by the index, which takes 12 bits
+      long sortKey = 0;
+      for (float ratio : RATIOS_TABLE[i]) {
+        sortKey = sortKey * (PDF417Common.MODULES_IN_CODEWORD + 1) + Math.round(ratio * PDF417Common.MODULES_IN_CODEWORD);
+      }
+      sortKeys[i] = (sortKey << 12) | i;
+    }
+
+    Arrays.sort(sortKeys);
+    for (int i = 0; i < sortKeys.length; i++) {
+      int symbol = (int) (sortKeys[i] & 0xFFF);
+      SORTED_SYMBOLS[i] = symbol;
+      for (int bar = 0; bar < PDF417Common.BARS_IN_MODULE; bar++) {
+        SORTED_WIDTHS[bar][i] = Math.round(RATIOS_TABLE[symbol][bar] * PDF417Common.MODULES_IN_CODEWORD);
+      }
+    }
+    for (int bar = 0; bar < PDF417Common.BARS_IN_MODULE; bar++) {
+      for (int i = sortKeys.length - 1; i >= 0; i--) {
+        boolean sameRange = i + 1 < sortKeys.length && SORTED_WIDTHS[bar][i + 1] == SORTED_WIDTHS[bar][i] &&
+            (bar == 0 || SORTED_RANGE_ENDS[bar - 1][i + 1] == SORTED_RANGE_ENDS[bar - 1][i]);
+        SORTED_RANGE_ENDS[bar][i] = sameRange ? SORTED_RANGE_ENDS[bar][i + 1] : i + 1;
+      }
+    }
+    for (int width = 0; width < BAR_RATIOS.length; width++) {
+      BAR_RATIOS[width] = (float) width / PDF417Common.MODULES_IN_CODEWORD;
     }
   }
 
@@ -89,32 +132,85 @@ final class PDF417CodewordDecoder {
     return (int) result;
   }
 
-  private static int getClosestDecodedValue(int[] moduleBitCount) {
+  /**
+   * Finds the symbol whose bar width ratios are closest to the counts', by squared error, and the
+   * first in the symbol table of any as close. The error is summed bar by bar, in float, as when
+   * comparing with every symbol in turn, but once for all the symbols with the same widths up to
+   * a bar. Since it only grows with each bar added, the symbols whose first bars are already
+   * worse than the best match found are skipped together.
+   */
+  static int getClosestDecodedValue(int[] moduleBitCount) {
     int bitCountSum = MathUtils.sum(moduleBitCount);
-    float[] bitCountRatios = new float[PDF417Common.BARS_IN_MODULE];
-    if (bitCountSum > 1) {
-      for (int i = 0; i < bitCountRatios.length; i++) {
-        bitCountRatios[i] = moduleBitCount[i] / (float) bitCountSum;
+    // Start with the symbol found by following the nearest width at each bar, to skip more
+    int start = 0;
+    int end = SORTED_SYMBOLS.length;
+    float error = 0.0f;
+    for (int bar = 0; bar < PDF417Common.BARS_IN_MODULE; bar++) {
+      float ratio = getRatio(moduleBitCount, bitCountSum, bar);
+      float bestDiff = Float.MAX_VALUE;
+      int nearest = start;
+      for (int i = start; i < end; i = SORTED_RANGE_ENDS[bar][i]) {
+        float diff = Math.abs(BAR_RATIOS[SORTED_WIDTHS[bar][i]] - ratio);
+        if (diff < bestDiff) {
+          bestDiff = diff;
+          nearest = i;
+        }
       }
+      float diff = BAR_RATIOS[SORTED_WIDTHS[bar][nearest]] - ratio;
+      error += diff * diff;
+      start = nearest;
+      end = SORTED_RANGE_ENDS[bar][nearest];
     }
-    float bestMatchError = Float.MAX_VALUE;
-    int bestMatch = -1;
-    for (int j = 0; j < RATIOS_TABLE.length; j++) {
-      float error = 0.0f;
-      float[] ratioTableRow = RATIOS_TABLE[j];
-      for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
-        float diff = ratioTableRow[k] - bitCountRatios[k];
-        error += diff * diff;
-        if (error >= bestMatchError) {
-          break;
-        }
+    long bestMatch = toMatch(error, SORTED_SYMBOLS[start]);
+
+    bestMatch = getClosestMatch(moduleBitCount, bitCountSum, 0, 0, SORTED_SYMBOLS.length, 0.0f, bestMatch);
+    return PDF417Common.SYMBOL_TABLE[(int) bestMatch];
+  }
+
+  /**
+   * @return a match of a symbol, ordered first by error and then by index into the symbol table
+   */
+  private static long toMatch(float error, int symbol) {
+    // Non-negative floats order as their bits do
+    return ((long) Float.floatToIntBits(error) << 32) | symbol;
+  }
+
+  /**
+   * @param bar bar to compare next
+   * @param start first of the sorted symbols with the same widths up to the bar
+   * @param end end of those symbols
+   * @param error their error so far
+   * @param bestMatch best match found so far
+   * @return the best of bestMatch and the matches of the symbols which may be better
+   */
+  private static long getClosestMatch(int[] moduleBitCount,
+                                      int bitCountSum,
+                                      int bar,
+                                      int start,
+                                      int end,
+                                      float error,
+                                      long bestMatch) {
+    float ratio = getRatio(moduleBitCount, bitCountSum, bar);
+    int[] widths = SORTED_WIDTHS[bar];
+    int[] rangeEnds = SORTED_RANGE_ENDS[bar];
+    for (int i = start; i < end; i = rangeEnds[i]) {
+      float diff = BAR_RATIOS[widths[i]] - ratio;
+      float rangeError = error + diff * diff;
+      if (rangeError > Float.intBitsToFloat((int) (bestMatch >>> 32))) {
+        continue;
       }
-      if (error < bestMatchError) {
-        bestMatchError = error;
-        bestMatch = PDF417Common.SYMBOL_TABLE[j];
+      if (bar == PDF417Common.BARS_IN_MODULE - 1) {
+        // One symbol, as no two have the same widths
+        bestMatch = Math.min(bestMatch, toMatch(rangeError, SORTED_SYMBOLS[i]));
+      } else {
+        bestMatch = getClosestMatch(moduleBitCount, bitCountSum, bar + 1, i, rangeEnds[i], rangeError, bestMatch);
       }
     }
     return bestMatch;
   }
 
+  private static float getRatio(int[] moduleBitCount, int bitCountSum, int bar) {
+    return bitCountSum > 1 ? moduleBitCount[bar] / (float) bitCountSum : 0.0f;
+  }
+
 }
@@ -32,6 +32,7 @@ import com.google.zxing.common.DetectorResult;
 import com.google.zxing.qrcode.decoder.Decoder;
 import com.google.zxing.qrcode.decoder.QRCodeDecoderMetaData;
 import com.google.zxing.qrcode.detector.Detector;
+import com.google.zxing.qrcode.detector.FinderPatternTracker;
 
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,8 @@ public class QRCodeReader implements Reader {
   private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
 
   private final Decoder decoder = new Decoder();
+  // Position of the code in the previous frame, when DecodeHintType.TRACK_BETWEEN_FRAMES is set.
+  private final FinderPatternTracker tracker = new FinderPatternTracker();
 
   protected final Decoder getDecoder() {
     return decoder;
@@ -75,8 +78,23 @@ public class QRCodeReader implements Reader {
       points = NO_POINTS;
     } else {
       //chyl411 image.getBlackMatrix().toString() 这里是相机拍摄二值化之后的结果，可以直接显示出来
-      DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect(hints);
-      decoderResult = decoder.decode(detectorResult.getBits(), hints);
+      Detector detector = hints != null && hints.containsKey(DecodeHintType.SUPERSAMPLE_MODULES) ?
+          new Detector(image.getBlackMatrix(), image.getLuminanceSource()) :
+          new Detector(image.getBlackMatrix());
+      DetectorResult detectorResult;
+      if (hints != null && hints.containsKey(DecodeHintType.TRACK_BETWEEN_FRAMES)) {
+        detectorResult = detector.detect(hints, tracker);
+        try {
+          decoderResult = decoder.decode(detectorResult.getBits(), detectorResult.getConfidence(), hints);
+        } catch (ChecksumException | FormatException e) {
+          // Probably not a code where we found one; don't keep looking there.
+          tracker.clear();
+          throw e;
+        }
+      } else {
+        detectorResult = detector.detect(hints);
+        decoderResult = decoder.decode(detectorResult.getBits(), detectorResult.getConfidence(), hints);
+      }
       points = detectorResult.getPoints();
     }
 
@@ -103,6 +121,10 @@ public class QRCodeReader implements Reader {
     return result;
   }
 
+  /**
+   * Does not forget the position tracked for {@link DecodeHintType#TRACK_BETWEEN_FRAMES}, which
+   * is meant to carry over to the next image.
+   */
   @Override
   public void reset() {
     // do nothing
@@ -145,75 +145,34 @@ final class BitMatrixParser {
   /**
    * <p>Reads the bits in the {@link BitMatrix} representing the finder pattern in the
    * correct order in order to reconstruct the codewords bytes contained within the
-   * QR Code.</p>
+   * QR Code. The data mask is removed from the codewords as they are read, through the
+   * {@link CodewordReadPlan} of the version and mask, so the {@link BitMatrix} is left
+   * unchanged.</p>
    *
    * @return bytes encoded within the QR Code
-   * @throws FormatException if the exact number of bytes expected is not read
+   * @throws FormatException if the version or format information cannot be read
    */
   byte[] readCodewords() throws FormatException {
 
     FormatInformation formatInfo = readFormatInformation();
     Version version = readVersion();
 
-    // Get the data mask for the format used in this QR Code. This will exclude
-    // some bits from reading as we wind through the bit matrix.
-    DataMask dataMask = DataMask.values()[formatInfo.getDataMask()];
-    int dimension = bitMatrix.getHeight();
-    dataMask.unmaskBitMatrix(bitMatrix, dimension);
-
-    BitMatrix functionPattern = version.buildFunctionPattern();
-
-    boolean readingUp = true;
-    byte[] result = new byte[version.getTotalCodewords()];
-    int resultOffset = 0;
-    int currentByte = 0;
-    int bitsRead = 0;
-    // Read columns in pairs, from right to left
-    for (int j = dimension - 1; j > 0; j -= 2) {
-      if (j == 6) {
-        // Skip whole column with vertical alignment pattern;
-        // saves time and makes the other code proceed more cleanly
-        j--;
-      }
-      // Read alternatingly from bottom to top then top to bottom
-      for (int count = 0; count < dimension; count++) {
-        int i = readingUp ? dimension - 1 - count : count;
-        for (int col = 0; col < 2; col++) {
-          // Ignore bits covered by the function pattern
-          if (!functionPattern.get(j - col, i)) {
-            // Read a bit
-            bitsRead++;
-            currentByte <<= 1;
-            if (bitMatrix.get(j - col, i)) {
-              currentByte |= 1;
-            }
-            // If we've made a whole byte, save it off
-            if (bitsRead == 8) {
-              result[resultOffset++] = (byte) currentByte;
-              bitsRead = 0;
-              currentByte = 0;
-            }
-          }
-        }
-      }
-      readingUp ^= true; // readingUp = !readingUp; // switch directions
-    }
-    if (resultOffset != version.getTotalCodewords()) {
-      throw FormatException.getFormatInstance();
-    }
-    return result;
+    return CodewordReadPlan.getPlan(version, formatInfo.getDataMask()).readCodewords(bitMatrix);
   }
 
   /**
-   * Revert the mask removal done while reading the code words. The bit matrix should revert to its original state.
+   * @param moduleConfidence unsigned confidence of each module of the matrix as it was given,
+   *  row by row
+   * @return the confidence of each of the codewords returned by {@link #readCodewords()}, in the
+   *  same order
+   * @throws FormatException if the version or format information cannot be read
    */
-  void remask() {
-    if (parsedFormatInfo == null) {
-      return; // We have no format information, and have no data mask
-    }
-    DataMask dataMask = DataMask.values()[parsedFormatInfo.getDataMask()];
-    int dimension = bitMatrix.getHeight();
-    dataMask.unmaskBitMatrix(bitMatrix, dimension);
+  byte[] readCodewordConfidence(byte[] moduleConfidence) throws FormatException {
+    FormatInformation formatInfo = readFormatInformation();
+    Version version = readVersion();
+    // Once mirrored for reading, the matrix is the transpose of the one the confidence is for
+    return CodewordReadPlan.getPlan(version, formatInfo.getDataMask())
+        .readConfidence(moduleConfidence, bitMatrix.getHeight(), mirror);
   }
 
   /**
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.decoder;
+
+import com.google.zxing.common.BitMatrix;
+
+/**
+ * <p>Where the codewords of a QR Code are, for one version and data mask: the data modules in
+ * the order they are read, skipping the function pattern, and for each codeword the bits the
+ * data mask flips. Reading the codewords is then a loop over these arrays, which leaves the
+ * {@link BitMatrix} as it is.</p>
+ *
+ * <p>Plans are built the first time a version and data mask are read, and shared from then on.
+ * The module positions, by far the larger part, are shared between the masks of a version.</p>
+ *
+ * @see BitMatrixParser#readCodewords()
+ */
+final class CodewordReadPlan {
+
+  private static final int NUM_VERSIONS = 40;
+  private static final int NUM_DATA_MASKS = 8;
+
+  // Plans built so far. A plan never changes once built, and its fields are final, so threads
+  // racing to build one each get a correct copy.
+  private static final CodewordReadPlan[] PLANS = new CodewordReadPlan[NUM_VERSIONS * NUM_DATA_MASKS];
+
+  // Column in the high bits and row in the low 8 bits of each data module, in reading order
+  private final int[] modules;
+  // Bits of each codeword flipped by the data mask
+  private final byte[] maskBytes;
+
+  private CodewordReadPlan(int[] modules, byte[] maskBytes) {
+    this.modules = modules;
+    this.maskBytes = maskBytes;
+  }
+
+  static CodewordReadPlan getPlan(Version version, int dataMask) {
+    int first = (version.getVersionNumber() - 1) * NUM_DATA_MASKS;
+    CodewordReadPlan plan = PLANS[first + dataMask];
+    if (plan == null) {
+      // The module positions are the same for every data mask of a version
+      int[] modules = null;
+      for (int i = first; i < first + NUM_DATA_MASKS && modules == null; i++) {
+        CodewordReadPlan other = PLANS[i];
+        if (other != null) {
+          modules = other.modules;
+        }
+      }
+      if (modules == null) {
+        modules = buildModules(version);
+      }
+      plan = new CodewordReadPlan(modules, buildMaskBytes(modules, DataMask.values()[dataMask]));
+      PLANS[first + dataMask] = plan;
+    }
+    return plan;
+  }
+
+  /**
+   * Winds through the symbol in reading order, keeping the modules outside the function pattern.
+   * Modules left over after the last whole codeword are not kept.
+   */
+  private static int[] buildModules(Version version) {
+    int dimension = version.getDimensionForVersion();
+    BitMatrix functionPattern = version.buildFunctionPattern();
+    int[] modules = new int[version.getTotalCodewords() * 8];
+    int count = 0;
+    boolean readingUp = true;
+    // Read columns in pairs, from right to left
+    for (int j = dimension - 1; j > 0 && count < modules.length; j -= 2) {
+      if (j == 6) {
+        // Skip whole column with vertical alignment pattern
+        j--;
+      }
+      // Read alternatingly from bottom to top then top to bottom
+      for (int row = 0; row < dimension && count < modules.length; row++) {
+        int i = readingUp ? dimension - 1 - row : row;
+        for (int col = 0; col < 2 && count < modules.length; col++) {
+          // Ignore bits covered by the function pattern
+          if (!functionPattern.get(j - col, i)) {
+            modules[count++] = ((j - col) << 8) | i;
+          }
+        }
+      }
+      readingUp ^= true; // readingUp = !readingUp; // switch directions
+    }
+    if (count != modules.length) {
+      throw new IllegalStateException("Version has fewer data modules than codewords");
+    }
+    return modules;
+  }
+
+  private static byte[] buildMaskBytes(int[] modules, DataMask dataMask) {
+    byte[] maskBytes = new byte[modules.length / 8];
+    for (int k = 0; k < modules.length; k++) {
+      int module = modules[k];
+      // isMasked takes the row first
+      if (dataMask.isMasked(module & 0xFF, module >>> 8)) {
+        maskBytes[k >> 3] |= 0x80 >>> (k & 0x07);
+      }
+    }
+    return maskBytes;
+  }
+
+  /**
+   * @param bitMatrix masked modules of a symbol of the version of this plan
+   * @return the codewords, unmasked
+   */
+  byte[] readCodewords(BitMatrix bitMatrix) {
+    int[] modules = this.modules;
+    byte[] maskBytes = this.maskBytes;
+    byte[] result = new byte[maskBytes.length];
+    for (int b = 0, k = 0; b < result.length; b++) {
+      int currentByte = 0;
+      for (int end = k + 8; k < end; k++) {
+        int module = modules[k];
+        currentByte <<= 1;
+        if (bitMatrix.get(module >>> 8, module & 0xFF)) {
+          currentByte |= 1;
+        }
+      }
+      result[b] = (byte) (currentByte ^ maskBytes[b]);
+    }
+    return result;
+  }
+
+  /**
+   * @param moduleConfidence unsigned confidence of each module of the symbol, row by row
+   * @param dimension dimension of the symbol
+   * @param transposed whether the symbol is read transposed, as when mirrored
+   * @return the confidence of each codeword: the lowest of its modules
+   */
+  byte[] readConfidence(byte[] moduleConfidence, int dimension, boolean transposed) {
+    int[] modules = this.modules;
+    byte[] result = new byte[maskBytes.length];
+    for (int b = 0, k = 0; b < result.length; b++) {
+      int lowest = 0xFF;
+      for (int end = k + 8; k < end; k++) {
+        int module = modules[k];
+        int x = module >>> 8;
+        int y = module & 0xFF;
+        lowest = Math.min(lowest, moduleConfidence[transposed ? x * dimension + y : y * dimension + x] & 0xFF);
+      }
+      result[b] = (byte) lowest;
+    }
+    return result;
+  }
+
+}
@@ -16,13 +16,10 @@
 
 package com.google.zxing.qrcode.decoder;
 
-import com.google.zxing.common.BitMatrix;
-
 /**
  * <p>Encapsulates data masks for the data bits in a QR code, per ISO 18004:2006 6.8. Implementations
- * of this class can un-mask a raw BitMatrix. For simplicity, they will unmask the entire BitMatrix,
- * including areas used for finder patterns, timing patterns, etc. These areas should be unused
- * after the point they are unmasked anyway.</p>
+ * of this class tell which modules are flipped by the mask. {@link CodewordReadPlan} records this
+ * for the data modules, and flips them back as codewords are read.</p>
  *
  * <p>Note that the diagram in section 6.8.1 is misleading since it indicates that i is column position
  * and j is row position. In fact, as the text says, i is row position and j is column position.</p>
@@ -118,24 +115,6 @@ enum DataMask {
 
   // End of enum constants.
 
-
-  /**
-   * <p>Implementations of this method reverse the data masking process applied to a QR Code and
-   * make its bits ready to read.</p>
-   *
-   * @param bits representation of QR Code bits
-   * @param dimension dimension of QR Code, represented by bits, being unmasked
-   */
-  final void unmaskBitMatrix(BitMatrix bits, int dimension) {
-    for (int i = 0; i < dimension; i++) {
-      for (int j = 0; j < dimension; j++) {
-        if (isMasked(i, j)) {
-          bits.flip(j, i);
-        }
-      }
-    }
-  }
-
   abstract boolean isMasked(int i, int j);
 
 }
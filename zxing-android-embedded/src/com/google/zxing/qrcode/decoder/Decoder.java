@@ -35,7 +35,19 @@ import java.util.Map;
  */
 public final class Decoder {
 
+  // Codewords less confident than this, out of 255, may be erased when a block has too many errors
+  private static final int ERASURE_CONFIDENCE = 96;
+  // Error-correction codewords left unused by a correction with erasures. Each one makes a random
+  // block about 256 times less likely to pass for a corrected one.
+  private static final int ERASURE_MARGIN = 3;
+
   private final ReedSolomonDecoder rsDecoder;
+  // Codewords of the block being corrected, kept from one block to the next
+  private int[] codewordsInts = new int[0];
+  // Positions of the codewords of the block which may be erased, least confident first
+  private int[] erasures = new int[0];
+  // Codewords of the block as they were before being corrected with erasures
+  private int[] uncorrected = new int[0];
 
   public Decoder() {
     rsDecoder = new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256);
@@ -75,13 +87,33 @@ public final class Decoder {
    */
   public DecoderResult decode(BitMatrix bits, Map<DecodeHintType,?> hints)
       throws FormatException, ChecksumException {
+    return decode(bits, null, hints);
+  }
+
+  /**
+   * <p>Decodes a QR Code represented as a {@link BitMatrix}, knowing how confident the sampler
+   * was of each module. Blocks with more errors than error correction can fix are decoded again
+   * with their least confident codewords as erasures, the positions of which need not be
+   * searched for.</p>
+   *
+   * @param bits booleans representing white/black QR Code modules
+   * @param confidence unsigned confidence of each module, row by row, as given by
+   *  {@link com.google.zxing.common.DetectorResult#getConfidence()}; or null to decode as
+   *  {@link #decode(BitMatrix, Map)}
+   * @param hints decoding hints that should be used to influence decoding
+   * @return text and bytes encoded within the QR Code
+   * @throws FormatException if the QR Code cannot be decoded
+   * @throws ChecksumException if error correction fails
+   */
+  public DecoderResult decode(BitMatrix bits, byte[] confidence, Map<DecodeHintType,?> hints)
+      throws FormatException, ChecksumException {
 
     // Construct a parser and read version, error-correction level
     BitMatrixParser parser = new BitMatrixParser(bits);
     FormatException fe = null;
     ChecksumException ce = null;
     try {
-      return decode(parser, hints);
+      return decode(parser, confidence, hints);
     } catch (FormatException e) {
       fe = e;
     } catch (ChecksumException e) {
@@ -90,9 +122,6 @@ public final class Decoder {
 
     try {
 
-      // Revert the bit matrix
-      parser.remask();
-
       // Will be attempting a mirrored reading of the version and format info.
       parser.setMirror(true);
 
@@ -111,7 +140,7 @@ public final class Decoder {
       // Prepare for a mirrored reading.
       parser.mirror();
 
-      DecoderResult result = decode(parser, hints);
+      DecoderResult result = decode(parser, confidence, hints);
 
       // Success! Notify the caller that the code was mirrored.
       result.setOther(new QRCodeDecoderMetaData(true));
@@ -131,7 +160,7 @@ public final class Decoder {
     }
   }
 
-  private DecoderResult decode(BitMatrixParser parser, Map<DecodeHintType,?> hints)
+  private DecoderResult decode(BitMatrixParser parser, byte[] confidence, Map<DecodeHintType,?> hints)
       throws FormatException, ChecksumException {
     Version version = parser.readVersion();
     ErrorCorrectionLevel ecLevel = parser.readFormatInformation().getErrorCorrectionLevel();
@@ -140,6 +169,11 @@ public final class Decoder {
     byte[] codewords = parser.readCodewords();
     // Separate into data blocks
     DataBlock[] dataBlocks = DataBlock.getDataBlocks(codewords, version, ecLevel);
+    // and their confidence likewise
+    DataBlock[] confidenceBlocks = null;
+    if (confidence != null) {
+      confidenceBlocks = DataBlock.getDataBlocks(parser.readCodewordConfidence(confidence), version, ecLevel);
+    }
 
     // Count total number of data bytes
     int totalBytes = 0;
@@ -150,10 +184,12 @@ public final class Decoder {
     int resultOffset = 0;
 
     // Error-correct and copy data blocks together into a stream of bytes
-    for (DataBlock dataBlock : dataBlocks) {
+    for (int j = 0; j < dataBlocks.length; j++) {
+      DataBlock dataBlock = dataBlocks[j];
       byte[] codewordBytes = dataBlock.getCodewords();
       int numDataCodewords = dataBlock.getNumDataCodewords();
-      correctErrors(codewordBytes, numDataCodewords);
+      correctErrors(codewordBytes, numDataCodewords,
+          confidenceBlocks == null ? null : confidenceBlocks[j].getCodewords());
       for (int i = 0; i < numDataCodewords; i++) {
         resultBytes[resultOffset++] = codewordBytes[i];
       }
@@ -169,19 +205,27 @@ public final class Decoder {
    *
    * @param codewordBytes data and error correction codewords
    * @param numDataCodewords number of codewords that are data bytes
+   * @param codewordConfidence unsigned confidence of each codeword, or null if unknown
    * @throws ChecksumException if error correction fails
    */
-  private void correctErrors(byte[] codewordBytes, int numDataCodewords) throws ChecksumException {
+  void correctErrors(byte[] codewordBytes, int numDataCodewords, byte[] codewordConfidence)
+      throws ChecksumException {
     int numCodewords = codewordBytes.length;
     // First read into an array of ints
-    int[] codewordsInts = new int[numCodewords];
+    if (codewordsInts.length < numCodewords) {
+      codewordsInts = new int[numCodewords];
+    }
+    int[] codewordsInts = this.codewordsInts;
     for (int i = 0; i < numCodewords; i++) {
       codewordsInts[i] = codewordBytes[i] & 0xFF;
     }
+    int numECCodewords = numCodewords - numDataCodewords;
     try {
-      rsDecoder.decode(codewordsInts, codewordBytes.length - numDataCodewords);
+      rsDecoder.decode(codewordsInts, numCodewords, numECCodewords);
     } catch (ReedSolomonException ignored) {
-      throw ChecksumException.getChecksumInstance();
+      if (codewordConfidence == null || !correctWithErasures(numCodewords, numECCodewords, codewordConfidence)) {
+        throw ChecksumException.getChecksumInstance();
+      }
     }
     // Copy back into array of bytes -- only need to worry about the bytes that were data
     // We don't care about errors in the error-correction codewords
@@ -190,4 +234,64 @@ public final class Decoder {
     }
   }
 
+  /**
+   * <p>Attempts again to correct the codewords in {@link #codewordsInts}, once, erasing the least
+   * confident ones below {@link #ERASURE_CONFIDENCE}. With e errors corrected besides f erasures,
+   * the correction is only trusted if 2e + f leaves {@link #ERASURE_MARGIN} error-correction
+   * codewords unused, to catch a block which is simply beyond repair.</p>
+   *
+   * @return true if the codewords were corrected
+   */
+  private boolean correctWithErasures(int numCodewords, int numECCodewords, byte[] codewordConfidence) {
+    int maxErasures = numECCodewords - ERASURE_MARGIN;
+    if (maxErasures <= 0) {
+      return false;
+    }
+    if (erasures.length < numCodewords) {
+      erasures = new int[numCodewords];
+      uncorrected = new int[numCodewords];
+    }
+    int[] erasures = this.erasures;
+    int numErasures = 0;
+    for (int i = 0; i < numCodewords; i++) {
+      int confidence = codewordConfidence[i] & 0xFF;
+      if (confidence < ERASURE_CONFIDENCE) {
+        // Insertion sort, least confident first, keeping only as many as may be erased
+        int k = numErasures;
+        while (k > 0 && (codewordConfidence[erasures[k - 1]] & 0xFF) > confidence) {
+          if (k < maxErasures) {
+            erasures[k] = erasures[k - 1];
+          }
+          k--;
+        }
+        if (k < maxErasures) {
+          erasures[k] = i;
+          numErasures = Math.min(numErasures + 1, maxErasures);
+        }
+      }
+    }
+    if (numErasures == 0) {
+      return false;
+    }
+    int[] codewordsInts = this.codewordsInts;
+    int[] uncorrected = this.uncorrected;
+    System.arraycopy(codewordsInts, 0, uncorrected, 0, numCodewords);
+    try {
+      rsDecoder.decode(codewordsInts, numCodewords, numECCodewords, erasures, numErasures);
+    } catch (ReedSolomonException ignored) {
+      return false;
+    }
+    // Errors are the codewords corrected which were not erased
+    for (int i = 0; i < numErasures; i++) {
+      uncorrected[erasures[i]] = codewordsInts[erasures[i]];
+    }
+    int numErrors = 0;
+    for (int i = 0; i < numCodewords; i++) {
+      if (uncorrected[i] != codewordsInts[i]) {
+        numErrors++;
+      }
+    }
+    return 2 * numErrors + numErasures <= numECCodewords - ERASURE_MARGIN;
+  }
+
 }
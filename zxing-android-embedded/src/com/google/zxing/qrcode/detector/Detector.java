@@ -18,12 +18,14 @@ package com.google.zxing.qrcode.detector;
 
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
+import com.google.zxing.LuminanceSource;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.common.DetectorResult;
 import com.google.zxing.common.GridSampler;
+import com.google.zxing.common.LuminanceGridSampler;
 import com.google.zxing.common.PerspectiveTransform;
 import com.google.zxing.common.detector.MathUtils;
 import com.google.zxing.qrcode.decoder.Version;
@@ -38,11 +40,35 @@ import java.util.Map;
  */
 public class Detector {
 
+  // Coarse to fine detection: downsampled images keep at least this many pixels in their short
+  // side, enough for codes filling a good part of a preview frame to keep modules a few pixels wide.
+  private static final int MIN_DOWNSAMPLED_DIMENSION = 360;
+  private static final int MAX_DOWNSAMPLE_FACTOR = 4;
+  // Alignment patterns are searched for this many modules around where they are expected
+  private static final float ALIGNMENT_ALLOWANCE = 4.0f;
+
   private final BitMatrix image;
+  // Set to sample modules from the luminance rather than from image
+  private final LuminanceGridSampler luminanceSampler;
   private ResultPointCallback resultPointCallback;
+  // Whether to sample through the grid of alignment patterns, see DecodeHintType.ALIGNMENT_GRID
+  private boolean useAlignmentGrid;
 
   public Detector(BitMatrix image) {
     this.image = image;
+    this.luminanceSampler = null;
+  }
+
+  /**
+   * Creates a detector which finds the code in image, but samples its modules from the luminance
+   * image was binarized from, and reports their confidence in {@link DetectorResult#getConfidence()}.
+   *
+   * @param image binarized image
+   * @param luminanceSource luminance of the same image
+   */
+  public Detector(BitMatrix image, LuminanceSource luminanceSource) {
+    this.image = image;
+    this.luminanceSampler = new LuminanceGridSampler(luminanceSource);
   }
 
   protected final BitMatrix getImage() {
@@ -76,13 +102,115 @@ public class Detector {
 
     resultPointCallback = hints == null ? null :
         (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    useAlignmentGrid = hints != null && hints.containsKey(DecodeHintType.ALIGNMENT_GRID);
 
-    FinderPatternFinder finder = new FinderPatternFinder(image, resultPointCallback);
-    FinderPatternInfo info = finder.find(hints);
+    FinderPatternInfo info = findFinderPatterns(hints);
 
     return processFinderPatternInfo(info);
   }
 
+  /**
+   * <p>Detects a QR Code in a frame of a video, searching first around the position recorded by
+   * the tracker in the previous frame, and only scanning the whole image if the code is not
+   * found there. The tracker is updated with the result.</p>
+   *
+   * @param hints optional hints to detector
+   * @param tracker position of the code in the previous frame
+   * @return {@link DetectorResult} encapsulating results of detecting a QR Code
+   * @throws NotFoundException if QR Code cannot be found
+   * @throws FormatException if a QR Code cannot be decoded
+   */
+  public final DetectorResult detect(Map<DecodeHintType,?> hints, FinderPatternTracker tracker)
+      throws NotFoundException, FormatException {
+
+    resultPointCallback = hints == null ? null :
+        (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    useAlignmentGrid = hints != null && hints.containsKey(DecodeHintType.ALIGNMENT_GRID);
+
+    int[] region = tracker.getRegion(image.getWidth(), image.getHeight());
+    if (region != null) {
+      try {
+        FinderPatternInfo info = findInRegion(region[0], region[1], region[2], region[3], hints);
+        DetectorResult result = processFinderPatternInfo(info);
+        track(tracker, info, result);
+        return result;
+      } catch (NotFoundException | FormatException e) {
+        // Lost it, search the whole image
+      }
+    }
+
+    try {
+      FinderPatternInfo info = findFinderPatterns(hints);
+      DetectorResult result = processFinderPatternInfo(info);
+      track(tracker, info, result);
+      return result;
+    } catch (NotFoundException | FormatException e) {
+      tracker.clear();
+      throw e;
+    }
+  }
+
+  /**
+   * Scans the whole image for finder patterns. With {@link DecodeHintType#COARSE_TO_FINE} and a
+   * large enough image, the scan runs on a downsampled copy and the patterns it finds are then
+   * measured at full resolution. Codes too small to show up downsampled are looked for again at
+   * full resolution.
+   */
+  private FinderPatternInfo findFinderPatterns(Map<DecodeHintType,?> hints) throws NotFoundException {
+    int factor = hints != null && hints.containsKey(DecodeHintType.COARSE_TO_FINE) ?
+        getDownsampleFactor(image.getWidth(), image.getHeight()) : 1;
+    if (factor > 1) {
+      try {
+        FinderPatternInfo coarse = new FinderPatternFinder(image.downsample(factor)).find(hints);
+        return new FinderPatternFinder(image, resultPointCallback).refine(coarse, factor);
+      } catch (NotFoundException e) {
+        // Scan at full resolution
+      }
+    }
+    return new FinderPatternFinder(image, resultPointCallback).find(hints);
+  }
+
+  /**
+   * @return the largest power of 2, up to {@link #MAX_DOWNSAMPLE_FACTOR}, which keeps both sides
+   *         of the downsampled image at least {@link #MIN_DOWNSAMPLED_DIMENSION} long
+   */
+  static int getDownsampleFactor(int width, int height) {
+    int dimension = Math.min(width, height);
+    int factor = 1;
+    while (factor < MAX_DOWNSAMPLE_FACTOR && dimension / (factor * 2) >= MIN_DOWNSAMPLED_DIMENSION) {
+      factor *= 2;
+    }
+    return factor;
+  }
+
+  /**
+   * Runs the finder on a copy of part of the image, and maps the patterns back.
+   */
+  private FinderPatternInfo findInRegion(final int left, final int top, int width, int height,
+                                         Map<DecodeHintType,?> hints) throws NotFoundException {
+    BitMatrix region = image.crop(left, top, width, height);
+    final ResultPointCallback callback = resultPointCallback;
+    ResultPointCallback regionCallback = callback == null ? null : new ResultPointCallback() {
+      @Override
+      public void foundPossibleResultPoint(ResultPoint point) {
+        callback.foundPossibleResultPoint(new ResultPoint(point.getX() + left, point.getY() + top));
+      }
+    };
+    FinderPatternInfo info = new FinderPatternFinder(region, regionCallback).find(hints);
+    return new FinderPatternInfo(new FinderPattern[] {
+        info.getBottomLeft().translate(left, top),
+        info.getTopLeft().translate(left, top),
+        info.getTopRight().translate(left, top)
+    });
+  }
+
+  private void track(FinderPatternTracker tracker, FinderPatternInfo info, DetectorResult result) {
+    float moduleSize = (info.getTopLeft().getEstimatedModuleSize() +
+        info.getTopRight().getEstimatedModuleSize() +
+        info.getBottomLeft().getEstimatedModuleSize()) / 3.0f;
+    tracker.track(result.getPoints(), moduleSize, image.getWidth(), image.getHeight());
+  }
+
   protected final DetectorResult processFinderPatternInfo(FinderPatternInfo info)
       throws NotFoundException, FormatException {
 
@@ -130,7 +258,24 @@ public class Detector {
     PerspectiveTransform transform =
         createTransform(topLeft, topRight, bottomLeft, alignmentPattern, dimension);
 
-    BitMatrix bits = sampleGrid(image, transform, dimension);
+    BitMatrix bits;
+    byte[] confidence = luminanceSampler == null ? null : new byte[dimension * dimension];
+    int[] alignmentCenters = provisionalVersion.getAlignmentPatternCenters();
+    if (useAlignmentGrid && alignmentCenters.length >= 3) {
+      // Versions 7 and up have alignment patterns inside the symbol as well
+      int[] bounds = getCellBounds(alignmentCenters, dimension);
+      PerspectiveTransform[] transforms =
+          createCellTransforms(transform, alignmentCenters, bounds, moduleSize, alignmentPattern);
+      if (luminanceSampler == null) {
+        bits = sampleGrid(image, transforms, bounds, dimension);
+      } else {
+        bits = luminanceSampler.sampleGrid(dimension, dimension, bounds, bounds, transforms, confidence);
+      }
+    } else if (luminanceSampler == null) {
+      bits = sampleGrid(image, transform, dimension);
+    } else {
+      bits = luminanceSampler.sampleGrid(dimension, dimension, transform, confidence);
+    }
 
     ResultPoint[] points;
     if (alignmentPattern == null) {
@@ -138,7 +283,7 @@ public class Detector {
     } else {
       points = new ResultPoint[]{bottomLeft, topLeft, topRight, alignmentPattern};
     }
-    return new DetectorResult(bits, points);
+    return new DetectorResult(bits, points, confidence);
   }
 
   private static PerspectiveTransform createTransform(ResultPoint topLeft,
@@ -191,6 +336,140 @@ public class Detector {
     return sampler.sampleGrid(image, dimension, dimension, transform);
   }
 
+  /**
+   * @return first row or column of each row or column of cells, followed by the dimension. Cells
+   *  lie between the rows and columns of alignment pattern centers, and the outer ones reach to
+   *  the edge of the symbol.
+   */
+  private static int[] getCellBounds(int[] alignmentCenters, int dimension) {
+    int[] bounds = new int[alignmentCenters.length];
+    System.arraycopy(alignmentCenters, 1, bounds, 1, alignmentCenters.length - 2);
+    bounds[alignmentCenters.length - 1] = dimension;
+    return bounds;
+  }
+
+  /**
+   * <p>Locates every alignment pattern, and makes a transform for each cell of the grid they form,
+   * from the patterns at its corners. Where a symbol is curved or folded, the cells follow it much
+   * better than one transform for the whole symbol does.</p>
+   *
+   * <p>Patterns are searched for in order from the top left, each where the transform of the whole
+   * symbol puts it, moved by as much as the patterns above and to the left of it were found to
+   * be. Patterns which are not found, and the corners taken by finder patterns, are assumed to
+   * be where they were searched for.</p>
+   *
+   * @return transform of each cell, row by row, mapping module coordinates from the top left of
+   *  the cell to image coordinates
+   */
+  private PerspectiveTransform[] createCellTransforms(PerspectiveTransform transform,
+                                                      int[] alignmentCenters,
+                                                      int[] bounds,
+                                                      float moduleSize,
+                                                      AlignmentPattern bottomRight) {
+    int n = alignmentCenters.length;
+    // Where the transform puts the center of each pattern, row by row
+    float[] expected = new float[n * n * 2];
+    for (int j = 0; j < n; j++) {
+      for (int i = 0; i < n; i++) {
+        expected[(j * n + i) * 2] = alignmentCenters[i] + 0.5f;
+        expected[(j * n + i) * 2 + 1] = alignmentCenters[j] + 0.5f;
+      }
+    }
+    transform.transformPoints(expected);
+
+    float[] centers = new float[expected.length];
+    for (int diagonal = 0; diagonal <= 2 * (n - 1); diagonal++) {
+      for (int j = Math.max(0, diagonal - n + 1); j <= Math.min(diagonal, n - 1); j++) {
+        int i = diagonal - j;
+        int index = (j * n + i) * 2;
+        // Move as the patterns to the left, above, and above left did
+        float offsetX = 0.0f;
+        float offsetY = 0.0f;
+        int neighbors = 0;
+        for (int k = 0; k < 3; k++) {
+          int neighborI = k == 1 ? i : i - 1;
+          int neighborJ = k == 0 ? j : j - 1;
+          if (neighborI >= 0 && neighborJ >= 0) {
+            int neighbor = (neighborJ * n + neighborI) * 2;
+            offsetX += centers[neighbor] - expected[neighbor];
+            offsetY += centers[neighbor + 1] - expected[neighbor + 1];
+            neighbors++;
+          }
+        }
+        float x = expected[index];
+        float y = expected[index + 1];
+        if (neighbors > 0) {
+          x += offsetX / neighbors;
+          y += offsetY / neighbors;
+        }
+        boolean underFinderPattern = (i == 0 && j == 0) || (i == n - 1 && j == 0) || (i == 0 && j == n - 1);
+        if (i == n - 1 && j == n - 1 && bottomRight != null) {
+          x = bottomRight.getX();
+          y = bottomRight.getY();
+        } else if (!underFinderPattern) {
+          try {
+            AlignmentPattern pattern = findAlignmentInRegion(moduleSize, (int) x, (int) y, ALIGNMENT_ALLOWANCE);
+            x = pattern.getX();
+            y = pattern.getY();
+          } catch (NotFoundException re) {
+            // keep the estimate
+          }
+        }
+        centers[index] = x;
+        centers[index + 1] = y;
+      }
+    }
+
+    int cells = n - 1;
+    PerspectiveTransform[] transforms = new PerspectiveTransform[cells * cells];
+    for (int cellY = 0; cellY < cells; cellY++) {
+      for (int cellX = 0; cellX < cells; cellX++) {
+        // Corners of the cell, relative to its top left module
+        float left = alignmentCenters[cellX] + 0.5f - bounds[cellX];
+        float right = alignmentCenters[cellX + 1] + 0.5f - bounds[cellX];
+        float top = alignmentCenters[cellY] + 0.5f - bounds[cellY];
+        float bottom = alignmentCenters[cellY + 1] + 0.5f - bounds[cellY];
+        int topLeft = (cellY * n + cellX) * 2;
+        int bottomLeft = topLeft + n * 2;
+        transforms[cellY * cells + cellX] = PerspectiveTransform.quadrilateralToQuadrilateral(
+            left, top,
+            right, top,
+            right, bottom,
+            left, bottom,
+            centers[topLeft], centers[topLeft + 1],
+            centers[topLeft + 2], centers[topLeft + 3],
+            centers[bottomLeft + 2], centers[bottomLeft + 3],
+            centers[bottomLeft], centers[bottomLeft + 1]);
+      }
+    }
+    return transforms;
+  }
+
+  private static BitMatrix sampleGrid(BitMatrix image,
+                                      PerspectiveTransform[] transforms,
+                                      int[] bounds,
+                                      int dimension) throws NotFoundException {
+    GridSampler sampler = GridSampler.getInstance();
+    BitMatrix bits = new BitMatrix(dimension);
+    int cells = bounds.length - 1;
+    for (int cellY = 0; cellY < cells; cellY++) {
+      for (int cellX = 0; cellX < cells; cellX++) {
+        int left = bounds[cellX];
+        int top = bounds[cellY];
+        BitMatrix cell = sampler.sampleGrid(image, bounds[cellX + 1] - left, bounds[cellY + 1] - top,
+            transforms[cellY * cells + cellX]);
+        for (int y = 0; y < cell.getHeight(); y++) {
+          for (int x = 0; x < cell.getWidth(); x++) {
+            if (cell.get(x, y)) {
+              bits.set(left + x, top + y);
+            }
+          }
+        }
+      }
+    }
+    return bits;
+  }
+
   /**
    * <p>Computes the dimension (number of modules on a size) of the QR Code based on the position
    * of the finder patterns and estimated module size.</p>
@@ -54,6 +54,13 @@ public final class FinderPattern extends ResultPoint {
   }
    */
 
+  /**
+   * @return this finder pattern moved by (dx, dy), for patterns found in a part of the image
+   */
+  FinderPattern translate(float dx, float dy) {
+    return new FinderPattern(getX() + dx, getY() + dy, estimatedModuleSize, count);
+  }
+
   /**
    * <p>Determines if this finder pattern "about equals" a finder pattern at the stated
    * position and size -- meaning, it is at nearly the same center with nearly the same size.</p>
@@ -20,6 +20,7 @@ import com.google.zxing.DecodeHintType;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.BitArray;
 import com.google.zxing.common.BitMatrix;
 
 import java.io.Serializable;
@@ -48,6 +49,8 @@ public class FinderPatternFinder {
   private boolean hasSkipped;
   private final int[] crossCheckStateCount;
   private final ResultPointCallback resultPointCallback;
+  private BitArray crossCheckRow;
+  private int crossCheckRowY = -1;
 
   /**
    * <p>Creates a finder that will search the image for three finder patterns.</p>
@@ -91,62 +94,80 @@ public class FinderPatternFinder {
 
     boolean done = false;
     int[] stateCount = new int[5];
+    BitArray row = new BitArray(maxJ);
     for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
-      // Get a row of black/white values
+      // Get a row of black/white values, and walk it one run of same colored pixels at a time.
+      // Finding the end of a run skips over whole words of the row, so mostly white rows cost
+      // little more than their number of edges.
+      row = image.getRow(i, row);
       clearCounts(stateCount);
       int currentState = 0;
-      for (int j = 0; j < maxJ; j++) {
-        if (image.get(j, i)) {
-          // Black pixel
+      int j = 0;
+      while (j < maxJ) {
+        if (row.get(j)) {
+          // Black run
+          int end = row.getNextUnset(j);
           if ((currentState & 1) == 1) { // Counting white pixels
             currentState++;
           }
-          stateCount[currentState]++;
-        } else { // White pixel
-          if ((currentState & 1) == 0) { // Counting black pixels
-            if (currentState == 4) { // A winner?
-              if (foundPatternCross(stateCount)) { // Yes
-                boolean confirmed = handlePossibleCenter(stateCount, i, j);
-                if (confirmed) {
-                  // Start examining every other line. Checking each line turned out to be too
-                  // expensive and didn't improve performance.
-                  iSkip = 2;
-                  if (hasSkipped) {
-                    done = haveMultiplyConfirmedCenters();
-                  } else {
-                    int rowSkip = findRowSkip();
-                    if (rowSkip > stateCount[2]) {
-                      // Skip rows between row of lower confirmed center
-                      // and top of presumed third confirmed center
-                      // but back up a bit to get a full chance of detecting
-                      // it, entire width of center of finder pattern
-
-                      // Skip by rowSkip, but back off by stateCount[2] (size of last center
-                      // of pattern we saw) to be conservative, and also back off by iSkip which
-                      // is about to be re-added
-                      i += rowSkip - stateCount[2] - iSkip;
-                      j = maxJ - 1;
-                    }
-                  }
+          stateCount[currentState] += end - j;
+          j = end;
+          continue;
+        }
+        // White run
+        int end = row.getNextSet(j);
+        int runLength = end - j;
+        if ((currentState & 1) == 0) { // Counting black pixels
+          if (currentState == 4) { // A winner?
+            if (foundPatternCross(stateCount)) { // Yes
+              boolean confirmed = handlePossibleCenter(stateCount, i, j);
+              if (confirmed) {
+                // Start examining every other line. Checking each line turned out to be too
+                // expensive and didn't improve performance.
+                iSkip = 2;
+                if (hasSkipped) {
+                  done = haveMultiplyConfirmedCenters();
                 } else {
-                  shiftCounts2(stateCount);
-                  currentState = 3;
-                  continue;
+                  int rowSkip = findRowSkip();
+                  if (rowSkip > stateCount[2]) {
+                    // Skip rows between row of lower confirmed center
+                    // and top of presumed third confirmed center
+                    // but back up a bit to get a full chance of detecting
+                    // it, entire width of center of finder pattern
+
+                    // Skip by rowSkip, but back off by stateCount[2] (size of last center
+                    // of pattern we saw) to be conservative, and also back off by iSkip which
+                    // is about to be re-added
+                    i += rowSkip - stateCount[2] - iSkip;
+                    clearCounts(stateCount);
+                    break;
+                  }
                 }
-                // Clear state to start looking again
-                currentState = 0;
+                // Clear state to start looking again. The first white pixel only ended the
+                // pattern, the rest of the run starts the next one.
                 clearCounts(stateCount);
-              } else { // No, shift counts back by two
+                currentState = 0;
+                if (runLength > 1) {
+                  currentState = 1;
+                  stateCount[1] = runLength - 1;
+                }
+              } else {
                 shiftCounts2(stateCount);
                 currentState = 3;
+                stateCount[3] = runLength;
               }
-            } else {
-              stateCount[++currentState]++;
+            } else { // No, shift counts back by two
+              shiftCounts2(stateCount);
+              currentState = 3;
+              stateCount[3] = runLength;
             }
-          } else { // Counting white pixels
-            stateCount[currentState]++;
+          } else {
+            stateCount[++currentState] += runLength;
           }
+        } else { // Counting white pixels
+          stateCount[currentState] += runLength;
         }
+        j = end;
       }
       if (foundPatternCross(stateCount)) {
         boolean confirmed = handlePossibleCenter(stateCount, i, maxJ);
@@ -166,6 +187,74 @@ public class FinderPatternFinder {
     return new FinderPatternInfo(patternInfo);
   }
 
+  /**
+   * <p>Locates in this finder's image the finder patterns that another finder found in a copy of
+   * the image downsampled by the given factor. Each pattern is read again across the row through
+   * its scaled center, and goes through the same cross checks as one found by
+   * {@link #find(Map)}, so only pixels near the three patterns are visited.</p>
+   *
+   * @param coarse finder patterns found in the downsampled image
+   * @param factor downsampling factor of that image
+   * @return the finder patterns in this image
+   * @throws NotFoundException if a pattern doesn't check out at full resolution
+   */
+  final FinderPatternInfo refine(FinderPatternInfo coarse, int factor) throws NotFoundException {
+    FinderPattern[] coarsePatterns = {coarse.getBottomLeft(), coarse.getTopLeft(), coarse.getTopRight()};
+    int[] stateCount = new int[5];
+    for (FinderPattern pattern : coarsePatterns) {
+      int centerI = (int) (pattern.getY() * factor);
+      int end = crossAt((int) (pattern.getX() * factor), getCrossCheckRow(centerI), stateCount);
+      if (end < 0 || !foundPatternCross(stateCount) || !handlePossibleCenter(stateCount, centerI, end)) {
+        throw NotFoundException.getNotFoundInstance();
+      }
+    }
+    // Two coarse patterns which turn out to be the same one were combined
+    if (possibleCenters.size() != 3) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+
+    FinderPattern[] patternInfo = possibleCenters.toArray(new FinderPattern[3]);
+    ResultPoint.orderBestPatterns(patternInfo);
+
+    return new FinderPatternInfo(patternInfo);
+  }
+
+  /**
+   * Counts the black/white/black/white/black runs of a row around a pixel, as the row scan
+   * would have counted them on reaching the end of the last one.
+   *
+   * @param centerJ pixel in the center black run
+   * @param row row to read
+   * @param stateCount receives the length of each run
+   * @return end of the last black run, or -1 if centerJ is white or the runs reach the edge
+   */
+  private static int crossAt(int centerJ, BitArray row, int[] stateCount) {
+    int maxJ = row.getSize();
+    if (!row.get(centerJ)) {
+      return -1;
+    }
+    int j = centerJ - runLengthLeft(row, centerJ, true);
+    int end = centerJ + runLengthRight(row, centerJ, true);
+    stateCount[2] = end - j - 1;
+    if (j < 0 || end == maxJ) {
+      return -1;
+    }
+    stateCount[1] = runLengthLeft(row, j, false);
+    j -= stateCount[1];
+    if (j < 0) {
+      return -1;
+    }
+    stateCount[0] = runLengthLeft(row, j, true);
+
+    stateCount[3] = runLengthRight(row, end, false);
+    end += stateCount[3];
+    if (end == maxJ) {
+      return -1;
+    }
+    stateCount[4] = runLengthRight(row, end, true);
+    return end + stateCount[4];
+  }
+
   /**
    * Given a count of black/white/black/white/black pixels just seen and an end position,
    * figures the location of the center of this run.
@@ -235,6 +324,39 @@ public class FinderPatternFinder {
     return crossCheckStateCount;
   }
 
+  private BitArray getCrossCheckRow(int y) {
+    if (y != crossCheckRowY) {
+      crossCheckRow = image.getRow(y, crossCheckRow);
+      crossCheckRowY = y;
+    }
+    return crossCheckRow;
+  }
+
+  /**
+   * @return number of pixels of the given color from x to the right, x included
+   */
+  private static int runLengthRight(BitArray row, int x, boolean black) {
+    return (black ? row.getNextUnset(x) : row.getNextSet(x)) - x;
+  }
+
+  /**
+   * @return number of pixels of the given color from x to the left, x included
+   */
+  private static int runLengthLeft(BitArray row, int x, boolean black) {
+    int[] bits = row.getBitArray();
+    int bitsOffset = x / 32;
+    // Pixels of the other color, keeping only x and those to its left
+    int currentBits = black ? ~bits[bitsOffset] : bits[bitsOffset];
+    currentBits &= (int) ((2L << (x & 0x1F)) - 1);
+    while (currentBits == 0) {
+      if (--bitsOffset < 0) {
+        return x + 1;
+      }
+      currentBits = black ? ~bits[bitsOffset] : bits[bitsOffset];
+    }
+    return x - (bitsOffset * 32 + 31 - Integer.numberOfLeadingZeros(currentBits));
+  }
+
   protected final void clearCounts(int[] counts) {
     for (int x = 0; x < counts.length; x++) {
       counts[x] = 0;
@@ -406,53 +528,44 @@ public class FinderPatternFinder {
    */
   private float crossCheckHorizontal(int startJ, int centerI, int maxCount,
       int originalStateCountTotal) {
-    BitMatrix image = this.image;
-
     int maxJ = image.getWidth();
+    BitArray row = getCrossCheckRow(centerI);
     int[] stateCount = getCrossCheckStateCount();
 
+    // Same counts as reading pixel by pixel, but taking each run at once; runs longer than
+    // maxCount are cut short where the pixel loop would have stopped.
     int j = startJ;
-    while (j >= 0 && image.get(j, centerI)) {
-      stateCount[2]++;
-      j--;
-    }
+    stateCount[2] = runLengthLeft(row, j, true);
+    j -= stateCount[2];
     if (j < 0) {
       return Float.NaN;
     }
-    while (j >= 0 && !image.get(j, centerI) && stateCount[1] <= maxCount) {
-      stateCount[1]++;
-      j--;
-    }
+    stateCount[1] = Math.min(runLengthLeft(row, j, false), maxCount + 1);
+    j -= stateCount[1];
     if (j < 0 || stateCount[1] > maxCount) {
       return Float.NaN;
     }
-    while (j >= 0 && image.get(j, centerI) && stateCount[0] <= maxCount) {
-      stateCount[0]++;
-      j--;
-    }
+    stateCount[0] = Math.min(runLengthLeft(row, j, true), maxCount + 1);
     if (stateCount[0] > maxCount) {
       return Float.NaN;
     }
 
     j = startJ + 1;
-    while (j < maxJ && image.get(j, centerI)) {
-      stateCount[2]++;
-      j++;
+    if (j < maxJ) {
+      int run = runLengthRight(row, j, true);
+      stateCount[2] += run;
+      j += run;
     }
     if (j == maxJ) {
       return Float.NaN;
     }
-    while (j < maxJ && !image.get(j, centerI) && stateCount[3] < maxCount) {
-      stateCount[3]++;
-      j++;
-    }
+    stateCount[3] = Math.min(runLengthRight(row, j, false), maxCount);
+    j += stateCount[3];
     if (j == maxJ || stateCount[3] >= maxCount) {
       return Float.NaN;
     }
-    while (j < maxJ && image.get(j, centerI) && stateCount[4] < maxCount) {
-      stateCount[4]++;
-      j++;
-    }
+    stateCount[4] = Math.min(runLengthRight(row, j, true), maxCount);
+    j += stateCount[4];
     if (stateCount[4] >= maxCount) {
       return Float.NaN;
     }
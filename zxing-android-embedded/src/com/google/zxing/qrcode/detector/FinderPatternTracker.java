@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.ResultPoint;
+
+/**
+ * <p>Remembers where a QR Code was detected in the previous frame of a video, so that the
+ * {@link Detector} can look for the finder patterns around that position first instead of
+ * scanning the whole image.</p>
+ *
+ * <p>The region of interest is the bounding box of the finder and alignment pattern centers,
+ * widened by half a finder pattern and by an allowance for the code moving between frames.</p>
+ *
+ * <p>This class is not thread-safe: use one instance per stream of frames.</p>
+ */
+public final class FinderPatternTracker {
+
+  // A finder pattern is 7 modules wide, so its edge is 3.5 modules from the center.
+  private static final float HALF_FINDER_PATTERN_MODULES = 3.5f;
+  // Movement allowed between two frames, in modules, or as a fraction of the code size.
+  private static final float MIN_MOTION_MODULES = 8.0f;
+  private static final float MOTION_FRACTION = 0.25f;
+  // Beyond this fraction of the image, searching the region saves too little to be worth a miss.
+  private static final float MAX_REGION_FRACTION = 0.75f;
+
+  private boolean tracking;
+  private int imageWidth;
+  private int imageHeight;
+  private float minX;
+  private float minY;
+  private float maxX;
+  private float maxY;
+  private float moduleSize;
+
+  /**
+   * Records the patterns detected in the current frame.
+   *
+   * @param points finder pattern centers, and optionally the alignment pattern center
+   * @param moduleSize estimated module size, in pixels
+   * @param imageWidth width of the image the points were found in
+   * @param imageHeight height of the image the points were found in
+   */
+  public void track(ResultPoint[] points, float moduleSize, int imageWidth, int imageHeight) {
+    minX = Float.MAX_VALUE;
+    minY = Float.MAX_VALUE;
+    maxX = -Float.MAX_VALUE;
+    maxY = -Float.MAX_VALUE;
+    for (ResultPoint point : points) {
+      minX = Math.min(minX, point.getX());
+      minY = Math.min(minY, point.getY());
+      maxX = Math.max(maxX, point.getX());
+      maxY = Math.max(maxY, point.getY());
+    }
+    this.moduleSize = moduleSize;
+    this.imageWidth = imageWidth;
+    this.imageHeight = imageHeight;
+    tracking = true;
+  }
+
+  /**
+   * Forgets the last position, for example after the code was lost.
+   */
+  public void clear() {
+    tracking = false;
+  }
+
+  public boolean isTracking() {
+    return tracking;
+  }
+
+  /**
+   * @param width width of the image about to be searched
+   * @param height height of the image about to be searched
+   * @return left, top, width and height of the region to search first, or null if the whole
+   *         image should be searched
+   */
+  int[] getRegion(int width, int height) {
+    if (!tracking || width != imageWidth || height != imageHeight) {
+      return null;
+    }
+    float motion = Math.max(MIN_MOTION_MODULES * moduleSize,
+                            MOTION_FRACTION * Math.max(maxX - minX, maxY - minY));
+    float margin = HALF_FINDER_PATTERN_MODULES * moduleSize + motion;
+    int left = Math.max(0, (int) (minX - margin));
+    int top = Math.max(0, (int) (minY - margin));
+    int right = Math.min(width, (int) (maxX + margin) + 1);
+    int bottom = Math.min(height, (int) (maxY + margin) + 1);
+    if (left >= right || top >= bottom ||
+        (right - left) * (float) (bottom - top) > MAX_REGION_FRACTION * width * height) {
+      return null;
+    }
+    return new int[] {left, top, right - left, bottom - top};
+  }
+
+}
@@ -0,0 +1,26 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A way of converting a frame to 1 bit data, for use in a Decoder's fallback chain.
+ *
+ * @see DefaultBinarizerStrategy
+ * @see Decoder#Decoder(com.google.zxing.Reader, java.util.List)
+ */
+public interface BinarizerStrategy {
+
+    /**
+     * Create a Binarizer for a frame.
+     *
+     * This is called from the decoding thread only.
+     *
+     * @param source the image source
+     * @param previous the Binarizer this strategy created for the previous frame of the same
+     *                 Decoder, or null. Implementations may reuse its buffers through
+     *                 {@link Binarizer#createBinarizer(LuminanceSource)}.
+     * @return a new Binarizer
+     */
+    Binarizer createBinarizer(LuminanceSource source, Binarizer previous);
+}
@@ -1,5 +1,6 @@
 package com.journeyapps.barcodescanner;
 
+import com.google.zxing.Binarizer;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.LuminanceSource;
 import com.google.zxing.MultiFormatReader;
@@ -11,6 +12,7 @@ import com.google.zxing.common.GlobalHistogramBinarizer;
 import com.google.zxing.common.HybridBinarizer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -23,6 +25,15 @@ import java.util.List;
 public class Decoder implements ResultPointCallback {
     private Reader reader;
 
+    private List<BinarizerStrategy> binarizerStrategies;
+    private Binarizer[] previousBinarizers;
+    // Index of the strategy which decoded the last successful frame.
+    private int preferredStrategy;
+
+    // Luminance of the frame being decoded, reused for every frame. A Decoder is only used from a
+    // single thread, so this is effectively a per-thread buffer.
+    private byte[] matrix;
+
     /**
      * Create a new Decoder with the specified Reader.
      *
@@ -34,6 +45,25 @@ public class Decoder implements ResultPointCallback {
         this.reader = reader;
     }
 
+    /**
+     * Create a new Decoder which tries several binarizers on each frame.
+     *
+     * The strategies are tried in order until one of them decodes the frame, so cheap ones should
+     * come first. The strategy that decoded the last successful frame is tried first on the next
+     * one, since lighting rarely changes from one frame to the next.
+     *
+     * @param reader the reader
+     * @param binarizerStrategies the strategies to try, cheapest first
+     */
+    public Decoder(Reader reader, List<BinarizerStrategy> binarizerStrategies) {
+        if (binarizerStrategies.isEmpty()) {
+            throw new IllegalArgumentException("At least one binarizer strategy is required");
+        }
+        this.reader = reader;
+        this.binarizerStrategies = Collections.unmodifiableList(new ArrayList<>(binarizerStrategies));
+        this.previousBinarizers = new Binarizer[binarizerStrategies.size()];
+    }
+
     protected Reader getReader() {
         return reader;
     }
@@ -47,13 +77,123 @@ public class Decoder implements ResultPointCallback {
      * @return a Result or null
      */
     public Result decode(LuminanceSource source) {
-        return decode(toBitmap(source));
+        source = extractMatrix(source);
+        if (binarizerStrategies == null) {
+            return decode(toBitmap(source));
+        }
+        int count = binarizerStrategies.size();
+        for (int attempt = 0; attempt < count; attempt++) {
+            // The preferred strategy first, then the others in their original order.
+            int index;
+            if (attempt == 0) {
+                index = preferredStrategy;
+            } else if (attempt <= preferredStrategy) {
+                index = attempt - 1;
+            } else {
+                index = attempt;
+            }
+            Binarizer binarizer = binarizerStrategies.get(index).createBinarizer(source, previousBinarizers[index]);
+            previousBinarizers[index] = binarizer;
+            Result result = decode(new BinaryBitmap(binarizer));
+            if (result != null) {
+                preferredStrategy = index;
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Share one copy of the luminance of each frame between the binarizer strategies.
+     *
+     * Binarizers call getMatrix() on their source, which usually allocates a copy of the crop
+     * rectangle, and every binarizer strategy tried on a frame would make another. With several
+     * strategies, the source is wrapped so that the first getMatrix() copies into the reusable
+     * buffer and the others hand it out. With one, the source is used as it is.
+     *
+     * @param source the image source
+     * @return a source with the same luminance, cropping and rotation
+     */
+    private LuminanceSource extractMatrix(LuminanceSource source) {
+        if (binarizerStrategies == null || binarizerStrategies.size() < 2) {
+            return source;
+        }
+        return new FrameLuminanceSource(source);
+    }
+
+    /**
+     * The source of a frame, with its matrix copied once into the reusable buffer.
+     *
+     * Rows are read from the source until the matrix is needed, so that readers which only scan
+     * rows never copy it. Cropping and rotation are left to the source.
+     */
+    private final class FrameLuminanceSource extends LuminanceSource {
+        private final LuminanceSource source;
+        private byte[] luminances;
+
+        FrameLuminanceSource(LuminanceSource source) {
+            super(source.getWidth(), source.getHeight());
+            this.source = source;
+        }
+
+        @Override
+        public byte[] getRow(int y, byte[] row) {
+            if (luminances == null) {
+                return source.getRow(y, row);
+            }
+            if (y < 0 || y >= getHeight()) {
+                throw new IllegalArgumentException("Requested row is outside the image: " + y);
+            }
+            int width = getWidth();
+            if (row == null || row.length < width) {
+                row = new byte[width];
+            }
+            System.arraycopy(luminances, y * width, row, 0, width);
+            return row;
+        }
+
+        @Override
+        public byte[] getMatrix() {
+            if (luminances == null) {
+                int area = getWidth() * getHeight();
+                if (matrix == null || matrix.length < area) {
+                    matrix = new byte[area];
+                }
+                luminances = source.getMatrix(matrix);
+            }
+            return luminances;
+        }
+
+        @Override
+        public boolean isCropSupported() {
+            return source.isCropSupported();
+        }
+
+        @Override
+        public LuminanceSource crop(int left, int top, int width, int height) {
+            return source.crop(left, top, width, height);
+        }
+
+        @Override
+        public boolean isRotateSupported() {
+            return source.isRotateSupported();
+        }
+
+        @Override
+        public LuminanceSource rotateCounterClockwise() {
+            return source.rotateCounterClockwise();
+        }
+
+        @Override
+        public LuminanceSource rotateCounterClockwise45() {
+            return source.rotateCounterClockwise45();
+        }
     }
 
     /**
      * Given an image source, convert to a binary bitmap.
      *
-     * Override this to use a custom binarizer.
+     * Override this to use a custom binarizer. Not used when binarizer strategies are specified.
      *
      * @param source the image source
      * @return a BinaryBitmap
@@ -20,10 +20,16 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
+ * Decodes preview frames in the background until stopped.
  *
+ * With a single Decoder, frames are captured and decoded in turn on one thread. With more
+ * decoders, decoding is pipelined: each decoder gets its own worker thread, the next frame is
+ * captured while the workers are busy, and a bounded queue keeps only the most recent frames.
  */
 public class DecoderThread {
     private static final String TAG = DecoderThread.class.getSimpleName();
@@ -37,6 +43,16 @@ public class DecoderThread {
     private boolean running = false;
     private final Object LOCK = new Object();
 
+    // Pipelined decoding, only used with more than one decoder. The rest is guarded by LOCK.
+    private volatile List<Decoder> decoders;
+    private List<Worker> workers;
+    private final ArrayDeque<Worker> idleWorkers = new ArrayDeque<>();
+    private final ArrayDeque<Frame> queuedFrames = new ArrayDeque<>();
+    private boolean previewRequested;
+    private long nextSequence;
+    // Results of frames captured before the last successful frame are discarded.
+    private long cancelledBefore;
+
     private final Handler.Callback callback = new Handler.Callback() {
         @Override
         public boolean handleMessage(Message message) {
@@ -58,6 +74,24 @@ public class DecoderThread {
         this.resultHandler = resultHandler;
     }
 
+    /**
+     * Create a DecoderThread decoding with several decoders at once.
+     *
+     * Each decoder is used by its own worker thread, so the same instance must not appear twice.
+     * Use a DecoderFactory to create them. With a single decoder this is the same as
+     * DecoderThread(CameraInstance, Decoder, Handler).
+     *
+     * @param cameraInstance the camera to request preview frames from
+     * @param decoders one decoder per worker thread
+     * @param resultHandler handler receiving the results, or null
+     */
+    public DecoderThread(CameraInstance cameraInstance, List<Decoder> decoders, Handler resultHandler) {
+        this(cameraInstance, decoders.get(0), resultHandler);
+        if (decoders.size() > 1) {
+            this.decoders = new ArrayList<>(decoders);
+        }
+    }
+
     public Decoder getDecoder() {
         return decoder;
     }
@@ -66,6 +100,20 @@ public class DecoderThread {
         this.decoder = decoder;
     }
 
+    /**
+     * Replace the decoders used for pipelined decoding.
+     *
+     * @param decoders one decoder per worker thread, as many as the DecoderThread was created with
+     */
+    public void setDecoders(List<Decoder> decoders) {
+        List<Decoder> current = this.decoders;
+        if (current == null || current.size() != decoders.size()) {
+            throw new IllegalArgumentException("Expected " + (current == null ? 1 : current.size()) + " decoders");
+        }
+        this.decoder = decoders.get(0);
+        this.decoders = new ArrayList<>(decoders);
+    }
+
     public Rect getCropRect() {
         return cropRect;
     }
@@ -82,6 +130,11 @@ public class DecoderThread {
     public void start() {
         Util.validateMainThread();
 
+        if (decoders != null) {
+            startWorkers();
+            return;
+        }
+
         thread = new HandlerThread(TAG);
         thread.start();
         handler = new Handler(thread.getLooper(), callback);
@@ -97,6 +150,11 @@ public class DecoderThread {
     public void stop() {
         Util.validateMainThread();
 
+        if (decoders != null) {
+            stopWorkers();
+            return;
+        }
+
         synchronized (LOCK) {
             running = false;
             handler.removeCallbacksAndMessages(null);
@@ -115,6 +173,8 @@ public class DecoderThread {
                 if (running) {
                     // Post to our thread.
                     handler.obtainMessage(R.id.zxing_decode, sourceData).sendToTarget();
+                } else {
+                    sourceData.recycle();
                 }
             }
         }
@@ -130,6 +190,171 @@ public class DecoderThread {
         }
     };
 
+    private final PreviewCallback pipelinedPreviewCallback = new PreviewCallback() {
+        @Override
+        public void onPreview(SourceData sourceData) {
+            synchronized (LOCK) {
+                previewRequested = false;
+                if (!running) {
+                    sourceData.recycle();
+                    return;
+                }
+                Frame frame = new Frame(sourceData, nextSequence++);
+                Worker worker = idleWorkers.pollFirst();
+                if (worker != null) {
+                    worker.decode(frame);
+                } else {
+                    if (queuedFrames.size() == workers.size()) {
+                        // Backpressure: the oldest frame is the least useful one.
+                        queuedFrames.pollFirst().sourceData.recycle();
+                    }
+                    queuedFrames.addLast(frame);
+                }
+                requestPipelinedPreview();
+            }
+        }
+
+        @Override
+        public void onPreviewError(Exception e) {
+            synchronized (LOCK) {
+                previewRequested = false;
+                if (running) {
+                    requestPipelinedPreview();
+                }
+            }
+        }
+    };
+
+    private void startWorkers() {
+        List<Decoder> decoders = this.decoders;
+        synchronized (LOCK) {
+            workers = new ArrayList<>(decoders.size());
+            for (int i = 0; i < decoders.size(); i++) {
+                Worker worker = new Worker(i);
+                workers.add(worker);
+                idleWorkers.addLast(worker);
+            }
+            running = true;
+            requestPipelinedPreview();
+        }
+    }
+
+    private void stopWorkers() {
+        synchronized (LOCK) {
+            running = false;
+            for (Worker worker : workers) {
+                worker.quit();
+            }
+            idleWorkers.clear();
+            for (Frame frame : queuedFrames) {
+                frame.sourceData.recycle();
+            }
+            queuedFrames.clear();
+        }
+    }
+
+    /**
+     * Keep one preview request outstanding while decoding, so that capture overlaps decoding.
+     *
+     * Must be called while holding LOCK.
+     */
+    private void requestPipelinedPreview() {
+        if (!previewRequested && cameraInstance.isOpen()) {
+            previewRequested = true;
+            cameraInstance.requestPreview(pipelinedPreviewCallback);
+        }
+    }
+
+    /**
+     * Called by a worker once it is done with a frame.
+     *
+     * @return true if the result may be reported, false if the frame was cancelled
+     */
+    private boolean finishFrame(Worker worker, Frame frame, boolean found) {
+        synchronized (LOCK) {
+            if (!running) {
+                return false;
+            }
+            boolean report = frame.sequence >= cancelledBefore;
+            if (found && report) {
+                // Cancel the frames captured before this one: they are older than the result.
+                cancelledBefore = frame.sequence;
+                while (!queuedFrames.isEmpty() && queuedFrames.peekFirst().sequence < cancelledBefore) {
+                    queuedFrames.pollFirst().sourceData.recycle();
+                }
+            }
+            Frame next = queuedFrames.pollFirst();
+            if (next != null) {
+                worker.decode(next);
+            } else {
+                idleWorkers.addLast(worker);
+                requestPipelinedPreview();
+            }
+            return report;
+        }
+    }
+
+    private boolean isCancelled(Frame frame) {
+        synchronized (LOCK) {
+            return !running || frame.sequence < cancelledBefore;
+        }
+    }
+
+    /**
+     * A preview frame and the order in which it was captured.
+     */
+    private static final class Frame {
+        private final SourceData sourceData;
+        private final long sequence;
+
+        private Frame(SourceData sourceData, long sequence) {
+            this.sourceData = sourceData;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Decodes frames on its own thread, with its own decoder.
+     */
+    private final class Worker implements Handler.Callback {
+        private final int index;
+        private final HandlerThread thread;
+        private final Handler handler;
+
+        private Worker(int index) {
+            this.index = index;
+            thread = new HandlerThread(TAG + "-" + index);
+            thread.start();
+            handler = new Handler(thread.getLooper(), this);
+        }
+
+        private void decode(Frame frame) {
+            handler.obtainMessage(R.id.zxing_decode, frame).sendToTarget();
+        }
+
+        private void quit() {
+            handler.removeCallbacksAndMessages(null);
+            thread.quit();
+        }
+
+        @Override
+        public boolean handleMessage(Message message) {
+            long start = System.currentTimeMillis();
+            Frame frame = (Frame) message.obj;
+            Decoder decoder = decoders.get(index);
+            Result rawResult = null;
+            if (!isCancelled(frame)) {
+                rawResult = decodeFrame(decoder, frame.sourceData);
+            }
+            if (finishFrame(this, frame, rawResult != null)) {
+                sendResult(decoder, frame.sourceData, rawResult, start);
+            } else {
+                frame.sourceData.recycle();
+            }
+            return true;
+        }
+    }
+
     private void requestNextPreview() {
         if (cameraInstance.isOpen()) {
             cameraInstance.requestPreview(previewCallback);
@@ -165,6 +390,12 @@ public class DecoderThread {
 ////////////////////////////////////////////////////////////////////////////////////////////////////
     private void decode(SourceData sourceData) {
         long start = System.currentTimeMillis();
+        Result rawResult = decodeFrame(decoder, sourceData);
+        sendResult(decoder, sourceData, rawResult, start);
+        requestNextPreview();
+    }
+
+    private Result decodeFrame(Decoder decoder, SourceData sourceData) {
         Result rawResult = null;
         sourceData.setCropRect(cropRect);
         LuminanceSource source = createSource(sourceData);
@@ -172,7 +403,15 @@ public class DecoderThread {
         if(source != null) {
             rawResult = decoder.decode(source);
         }
+        return rawResult;
+    }
 
+    /**
+     * Report the result of a frame to the resultHandler.
+     *
+     * @param start time at which decoding started, for logging
+     */
+    private void sendResult(Decoder decoder, SourceData sourceData, Result rawResult, long start) {
         if (rawResult != null) {
             // Don't log the barcode contents for security.
             long end = System.currentTimeMillis();
@@ -185,6 +424,8 @@ public class DecoderThread {
                 message.sendToTarget();
             }
         } else {
+            // The result keeps the data for its bitmap, so only a failed frame goes back to the pool.
+            sourceData.recycle();
             if (resultHandler != null) {
                 Message message = Message.obtain(resultHandler, R.id.zxing_decode_failed);
                 message.sendToTarget();
@@ -195,6 +436,5 @@ public class DecoderThread {
             Message message = Message.obtain(resultHandler, R.id.zxing_possible_result_points, resultPoints);
             message.sendToTarget();
         }
-        requestNextPreview();
     }
 }
@@ -0,0 +1,57 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.common.AdaptiveThresholdBinarizer;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+/**
+ * The binarizers shipped with ZXing, roughly from cheapest to most expensive.
+ */
+public enum DefaultBinarizerStrategy implements BinarizerStrategy {
+
+    /**
+     * GlobalHistogramBinarizer, the default of Decoder.
+     */
+    GLOBAL_HISTOGRAM {
+        @Override
+        public Binarizer createBinarizer(LuminanceSource source, Binarizer previous) {
+            return new GlobalHistogramBinarizer(source);
+        }
+    },
+
+    /**
+     * HybridBinarizer, which copes better with shadows and gradients.
+     */
+    HYBRID {
+        @Override
+        public Binarizer createBinarizer(LuminanceSource source, Binarizer previous) {
+            return new HybridBinarizer(source);
+        }
+    },
+
+    /**
+     * AdaptiveThresholdBinarizer. Its integral image buffer is carried over from frame to frame.
+     */
+    ADAPTIVE_THRESHOLD {
+        @Override
+        public Binarizer createBinarizer(LuminanceSource source, Binarizer previous) {
+            if (previous == null) {
+                return new AdaptiveThresholdBinarizer(source);
+            }
+            return previous.createBinarizer(source);
+        }
+    },
+
+    /**
+     * HybridBinarizer on the inverted image, for light barcodes on a dark background, as used by
+     * InvertedDecoder.
+     */
+    INVERTED_HYBRID {
+        @Override
+        public Binarizer createBinarizer(LuminanceSource source, Binarizer previous) {
+            return new HybridBinarizer(source.invert());
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.google.zxing.qrcode.QRCodeReader;
 
 import java.util.Collection;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -18,6 +19,7 @@ public class DefaultDecoderFactory implements DecoderFactory {
     private Map<DecodeHintType, ?> hints;
     private String characterSet;
     private boolean inverted;
+    private List<BinarizerStrategy> binarizerStrategies;
 
     public DefaultDecoderFactory() {
     }
@@ -29,6 +31,22 @@ public class DefaultDecoderFactory implements DecoderFactory {
         this.inverted = inverted;
     }
 
+    /**
+     * Create a factory for Decoders which try several binarizers on each frame.
+     *
+     * @param decodeFormats the formats to decode, or null for all of them
+     * @param hints additional hints, or null
+     * @param characterSet the character set, or null
+     * @param binarizerStrategies the binarizers to try, cheapest first
+     * @see Decoder#Decoder(Reader, List)
+     */
+    public DefaultDecoderFactory(Collection<BarcodeFormat> decodeFormats, Map<DecodeHintType, ?> hints, String characterSet, List<BinarizerStrategy> binarizerStrategies) {
+        this.decodeFormats = decodeFormats;
+        this.hints = hints;
+        this.characterSet = characterSet;
+        this.binarizerStrategies = binarizerStrategies;
+    }
+
     @Override
     public Decoder createDecoder(Map<DecodeHintType, ?> baseHints) {
         Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
@@ -55,6 +73,9 @@ public class DefaultDecoderFactory implements DecoderFactory {
 //        Reader reader = new QRCodeReader();
 
 
+        if (binarizerStrategies != null) {
+            return new Decoder(reader, binarizerStrategies);
+        }
         return inverted ? new InvertedDecoder(reader) : new Decoder(reader);
 
     }
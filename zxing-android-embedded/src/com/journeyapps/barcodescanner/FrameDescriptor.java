@@ -0,0 +1,40 @@
+package com.journeyapps.barcodescanner;
+
+/**
+ * Format of the preview frames of a camera session: resolution, image format and rotation.
+ *
+ * These only change when the camera is configured, so they are captured once then and shared by
+ * every SourceData, rather than queried from the camera for each frame.
+ */
+public final class FrameDescriptor {
+    /** Frame width, in natural camera orientation */
+    public final int width;
+
+    /** Frame height, in natural camera orientation */
+    public final int height;
+
+    /** The format of the image data. ImageFormat.NV21 and ImageFormat.YUY2 are supported. */
+    public final int imageFormat;
+
+    /** Rotation in degrees (0, 90, 180 or 270). This is camera rotation relative to display rotation. */
+    public final int rotation;
+
+    /**
+     *
+     * @param width width of the data
+     * @param height height of the data
+     * @param imageFormat ImageFormat.NV21 or ImageFormat.YUY2
+     * @param rotation camera rotation relative to display rotation, in degrees (0, 90, 180 or 270).
+     */
+    public FrameDescriptor(int width, int height, int imageFormat, int rotation) {
+        this.width = width;
+        this.height = height;
+        this.imageFormat = imageFormat;
+        this.rotation = rotation;
+    }
+
+    @Override
+    public String toString() {
+        return width + "x" + height + ", format " + imageFormat + ", rotation " + rotation;
+    }
+}
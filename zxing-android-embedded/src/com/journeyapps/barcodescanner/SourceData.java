@@ -6,7 +6,10 @@ import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.graphics.YuvImage;
 
+import com.google.zxing.LuminanceSource;
 import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.RotatedPlanarYUVLuminanceSource;
+import com.journeyapps.barcodescanner.camera.PreviewBufferPool;
 
 import java.io.ByteArrayOutputStream;
 
@@ -17,6 +20,9 @@ public class SourceData {
     /** Raw YUV data */
     private byte[] data;
 
+    /** Resolution, format and rotation of the data */
+    private final FrameDescriptor descriptor;
+
     /** Source data width */
     private int dataWidth;
 
@@ -32,6 +38,9 @@ public class SourceData {
     /** Crop rectangle, in display orientation. */
     private Rect cropRect;
 
+    /** Pool the data came from, if any. */
+    private PreviewBufferPool bufferPool;
+
     /**
      *
      * @param data the image data
@@ -41,17 +50,31 @@ public class SourceData {
      * @param rotation camera rotation relative to display rotation, in degrees (0, 90, 180 or 270).
      */
     public SourceData(byte[] data, int dataWidth, int dataHeight, int imageFormat, int rotation) {
+        this(data, new FrameDescriptor(dataWidth, dataHeight, imageFormat, rotation));
+    }
+
+    /**
+     *
+     * @param data the image data
+     * @param descriptor resolution, format and rotation of the data
+     */
+    public SourceData(byte[] data, FrameDescriptor descriptor) {
         this.data = data;
-        this.dataWidth = dataWidth;
-        this.dataHeight = dataHeight;
-        this.rotation = rotation;
-        this.imageFormat = imageFormat;
+        this.descriptor = descriptor;
+        this.dataWidth = descriptor.width;
+        this.dataHeight = descriptor.height;
+        this.rotation = descriptor.rotation;
+        this.imageFormat = descriptor.imageFormat;
         if(dataWidth * dataHeight > data.length) {
             throw new IllegalArgumentException("Image data does not match the resolution. " + dataWidth + "x" + dataHeight + " > " + data.length);
         }
 
     }
 
+    public FrameDescriptor getFrameDescriptor() {
+        return descriptor;
+    }
+
     public Rect getCropRect() {
         return cropRect;
     }
@@ -69,6 +92,29 @@ public class SourceData {
         return data;
     }
 
+    /**
+     * Set the pool that the data was taken from, so that recycle() can give it back.
+     *
+     * @param bufferPool the pool, or null if the data is not pooled
+     */
+    public void setBufferPool(PreviewBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Give the data back to the pool it was taken from, so that the camera can capture another
+     * frame into it. Does nothing if the data is not pooled.
+     *
+     * The data, and any LuminanceSource created from it, must not be used afterwards.
+     */
+    public void recycle() {
+        PreviewBufferPool pool = bufferPool;
+        if (pool != null) {
+            bufferPool = null;
+            pool.release(data);
+        }
+    }
+
     /**
      *
      * @return width of the data
@@ -97,15 +143,21 @@ public class SourceData {
         return imageFormat;
     }
 
-    public PlanarYUVLuminanceSource createSource() {
-        byte[] rotated = rotateCameraPreview(rotation, data, dataWidth, dataHeight);
+    /**
+     * Create a LuminanceSource for the crop rectangle, in display orientation.
+     *
+     * The rotation is applied while the source is read, so only the crop rectangle is ever
+     * copied out of the frame.
+     *
+     * @return the source
+     */
+    public LuminanceSource createSource() {
         // TODO: handle mirrored (front) camera. Probably only the ResultPoints should be mirrored,
         // not the preview for decoding.
-        if (isRotated()) {
-            //noinspection SuspiciousNameCombination
-            return new PlanarYUVLuminanceSource(rotated, dataHeight, dataWidth, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), false);
+        if (rotation == 0) {
+            return new PlanarYUVLuminanceSource(data, dataWidth, dataHeight, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), false);
         } else {
-            return new PlanarYUVLuminanceSource(rotated, dataWidth, dataHeight, cropRect.left, cropRect.top, cropRect.width(), cropRect.height(), false);
+            return new RotatedPlanarYUVLuminanceSource(data, dataWidth, dataHeight, rotation, cropRect.left, cropRect.top, cropRect.width(), cropRect.height());
         }
     }
 
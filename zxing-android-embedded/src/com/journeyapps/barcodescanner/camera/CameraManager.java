@@ -17,6 +17,7 @@
 package com.journeyapps.barcodescanner.camera;
 
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.hardware.Camera;
 import android.os.Build;
 import android.util.Log;
@@ -26,6 +27,7 @@ import android.view.SurfaceHolder;
 import com.google.zxing.client.android.AmbientLightManager;
 import com.google.zxing.client.android.camera.CameraConfigurationUtils;
 import com.google.zxing.client.android.camera.open.OpenCameraInterface;
+import com.journeyapps.barcodescanner.FrameDescriptor;
 import com.journeyapps.barcodescanner.Size;
 import com.journeyapps.barcodescanner.SourceData;
 
@@ -72,19 +74,22 @@ public final class CameraManager {
 
     private int rotationDegrees = -1;    // camera rotation vs display rotation
 
+    // Buffers for preview frames, null to use one-shot callbacks instead.
+    private PreviewBufferPool bufferPool;
+
     private Context context;
 
 
     private final class CameraPreviewCallback implements Camera.PreviewCallback {
         private PreviewCallback callback;
 
-        private Size resolution;
+        private FrameDescriptor descriptor;
 
         public CameraPreviewCallback() {
         }
 
-        public void setResolution(Size resolution) {
-            this.resolution = resolution;
+        public void setFrameDescriptor(FrameDescriptor descriptor) {
+            this.descriptor = descriptor;
         }
 
         public void setCallback(PreviewCallback callback) {
@@ -93,21 +98,25 @@ public final class CameraManager {
 
         @Override
         public void onPreviewFrame(byte[] data, Camera camera) {
-            Size cameraResolution = resolution;
+            FrameDescriptor frameDescriptor = descriptor;
             PreviewCallback callback = this.callback;
-            if (cameraResolution != null && callback != null) {
+            PreviewBufferPool pool = bufferPool;
+            if (frameDescriptor != null && callback != null) {
                 try {
                     if(data == null) {
                         throw new NullPointerException("No preview data received");
                     }
-                    int format = camera.getParameters().getPreviewFormat();
-                    SourceData source = new SourceData(data, cameraResolution.width, cameraResolution.height, format, getCameraRotation());
+                    // The format was captured in setParameters(), to avoid getParameters() on every frame.
+                    SourceData source = new SourceData(data, frameDescriptor);
+                    source.setBufferPool(pool);
                     callback.onPreview(source);
                 } catch (RuntimeException e) {
                     // Could be:
-                    // java.lang.RuntimeException: getParameters failed (empty parameters)
                     // IllegalArgumentException: Image data does not match the resolution
                     Log.e(TAG, "Camera preview failed", e);
+                    if (pool != null) {
+                        pool.release(data);
+                    }
                     callback.onPreviewError(e);
                 }
             } else {
@@ -178,6 +187,10 @@ public final class CameraManager {
     public void startPreview() {
         Camera theCamera = camera;
         if (theCamera != null && !previewing) {
+            if (bufferPool != null) {
+                // Frames are only delivered while a buffer is queued, see requestPreviewFrame().
+                theCamera.setPreviewCallbackWithBuffer(cameraPreviewCallback);
+            }
             theCamera.startPreview();
             previewing = true;
             autoFocusManager = new AutoFocusManager(camera, settings);
@@ -202,6 +215,10 @@ public final class CameraManager {
         }
         if (camera != null && previewing) {
             camera.stopPreview();
+            if (bufferPool != null) {
+                // Also discards the queued buffers. The pool allocates replacements as needed.
+                camera.setPreviewCallbackWithBuffer(null);
+            }
             cameraPreviewCallback.setCallback(null);
             previewing = false;
         }
@@ -376,13 +393,33 @@ public final class CameraManager {
             }
         }
 
-        Camera.Size realPreviewSize = camera.getParameters().getPreviewSize();
+        Camera.Parameters parameters = camera.getParameters();
+        Camera.Size realPreviewSize = parameters.getPreviewSize();
         if (realPreviewSize == null) {
             previewSize = requestedPreviewSize;
         } else {
             previewSize = new Size(realPreviewSize.width, realPreviewSize.height);
         }
-        cameraPreviewCallback.setResolution(previewSize);
+        int previewFormat = parameters.getPreviewFormat();
+        if (previewSize == null) {
+            cameraPreviewCallback.setFrameDescriptor(null);
+        } else {
+            cameraPreviewCallback.setFrameDescriptor(new FrameDescriptor(previewSize.width, previewSize.height, previewFormat, rotationDegrees));
+        }
+        bufferPool = createBufferPool(previewSize, previewFormat);
+    }
+
+    private PreviewBufferPool createBufferPool(Size size, int format) {
+        int count = settings.getPreviewBufferCount();
+        int bitsPerPixel = ImageFormat.getBitsPerPixel(format);
+        if (count <= 0 || size == null || bitsPerPixel <= 0) {
+            return null;
+        }
+        int bufferSize = size.width * size.height * bitsPerPixel / 8;
+        if (bufferPool != null && bufferPool.getBufferSize() == bufferSize) {
+            return bufferPool;
+        }
+        return new PreviewBufferPool(bufferSize, count);
     }
 
     /**
@@ -423,13 +460,21 @@ public final class CameraManager {
      * The thread on which this called is undefined, so a Handler should be used to post the result
      * to the correct thread.
      *
+     * When preview buffers are enabled in the CameraSettings, the frame is captured into a buffer
+     * from the pool. The receiver should call SourceData.recycle() once it no longer needs the data.
+     *
      * @param callback The callback to receive the preview.
      */
     public void requestPreviewFrame(PreviewCallback callback) {
         Camera theCamera = camera;
         if (theCamera != null && previewing) {
             cameraPreviewCallback.setCallback(callback);
-            theCamera.setOneShotPreviewCallback(cameraPreviewCallback);
+            if (bufferPool != null) {
+                // A single queued buffer gives us a single frame, like the one-shot callback.
+                theCamera.addCallbackBuffer(bufferPool.acquire());
+            } else {
+                theCamera.setOneShotPreviewCallback(cameraPreviewCallback);
+            }
         }
     }
 
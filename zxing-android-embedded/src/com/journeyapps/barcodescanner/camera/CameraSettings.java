@@ -15,6 +15,7 @@ public class CameraSettings {
     private boolean exposureEnabled = false;
     private boolean autoTorchEnabled = false;
     private FocusMode focusMode = FocusMode.AUTO;
+    private int previewBufferCount = 0;
 
     public enum FocusMode {
         AUTO,
@@ -160,4 +161,20 @@ public class CameraSettings {
     public void setAutoTorchEnabled(boolean autoTorchEnabled) {
         this.autoTorchEnabled = autoTorchEnabled;
     }
+
+    /**
+     * Default to 0.
+     *
+     * When positive, preview frames are captured into this many preallocated buffers which are
+     * reused once a frame has been decoded, instead of allocating a new array for every frame.
+     *
+     * @return the number of preview buffers, or 0 to let the camera allocate every frame
+     */
+    public int getPreviewBufferCount() {
+        return previewBufferCount;
+    }
+
+    public void setPreviewBufferCount(int previewBufferCount) {
+        this.previewBufferCount = previewBufferCount;
+    }
 }
@@ -0,0 +1,67 @@
+package com.journeyapps.barcodescanner.camera;
+
+import java.util.ArrayDeque;
+
+/**
+ * Byte arrays for the camera to fill with preview frames, so that frames can be captured without
+ * allocating.
+ *
+ * Buffers are taken from the pool on the camera thread, and given back from whichever thread is
+ * done with the frame, typically the decoder thread.
+ */
+public final class PreviewBufferPool {
+    private final int bufferSize;
+    private final int capacity;
+    private final ArrayDeque<byte[]> buffers;
+
+    /**
+     *
+     * @param bufferSize size of each buffer, in bytes
+     * @param capacity number of buffers to allocate up front, and the most the pool will keep
+     */
+    public PreviewBufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.capacity = capacity;
+        this.buffers = new ArrayDeque<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            buffers.add(new byte[bufferSize]);
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Take a buffer from the pool. A new buffer is allocated if all of them are in use.
+     *
+     * @return a buffer of getBufferSize() bytes
+     */
+    public byte[] acquire() {
+        byte[] buffer;
+        synchronized (buffers) {
+            buffer = buffers.pollFirst();
+        }
+        if (buffer == null) {
+            buffer = new byte[bufferSize];
+        }
+        return buffer;
+    }
+
+    /**
+     * Give a buffer back to the pool. Buffers of the wrong size, for example ones from before the
+     * preview size changed, and buffers beyond the capacity of the pool are dropped.
+     *
+     * @param buffer the buffer, which must not be used by the caller afterwards
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        synchronized (buffers) {
+            if (buffers.size() < capacity) {
+                buffers.addLast(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.google.zxing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class LuminanceSourceTest {
+
+  private static void assertReusesMatrix(LuminanceSource source) {
+    byte[] expected = source.getMatrix();
+    byte[] reuse = new byte[source.getWidth() * source.getHeight() + 5];
+    byte[] matrix = source.getMatrix(reuse);
+    assertSame(reuse, matrix);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], matrix[i]);
+    }
+    // Too small to hold the matrix: ignored.
+    assertArrayEquals(expected, source.getMatrix(new byte[3]));
+  }
+
+  @Test
+  public void testGetMatrixReuse() {
+    byte[] yuv = new byte[30 * 20];
+    new Random(1).nextBytes(yuv);
+    LuminanceSource planar = new PlanarYUVLuminanceSource(yuv, 30, 20, 2, 3, 17, 11, false);
+    assertReusesMatrix(planar);
+    assertReusesMatrix(planar.invert());
+    assertReusesMatrix(new RotatedPlanarYUVLuminanceSource(yuv, 30, 20, 90, 2, 3, 17, 11));
+
+    int[] pixels = new int[30 * 20];
+    for (int i = 0; i < pixels.length; i++) {
+      pixels[i] = yuv[i] * 0x010101;
+    }
+    assertReusesMatrix(new RGBLuminanceSource(30, 20, pixels).crop(2, 3, 17, 11));
+  }
+
+  @Test
+  public void testInvertedDoesNotModifyDelegate() {
+    byte[] yuv = new byte[12 * 10];
+    new Random(2).nextBytes(yuv);
+    byte[] original = yuv.clone();
+    // The delegate hands out its own data for a full frame.
+    LuminanceSource inverted = new PlanarYUVLuminanceSource(yuv, 12, 10, 0, 0, 12, 10, false).invert();
+    byte[] matrix = inverted.getMatrix(new byte[120]);
+    assertArrayEquals(original, yuv);
+    for (int i = 0; i < yuv.length; i++) {
+      assertEquals(255 - (yuv[i] & 0xFF), matrix[i] & 0xFF);
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+package com.google.zxing;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RotatedPlanarYUVLuminanceSourceTest {
+
+  // Full rotated copy, the way SourceData.rotateCameraPreview() builds it.
+  private static byte[] rotate(byte[] data, int width, int height, int rotation) {
+    byte[] rotated = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        byte value = data[y * width + x];
+        switch (rotation) {
+          case 0:
+            rotated[y * width + x] = value;
+            break;
+          case 90:
+            rotated[x * height + height - 1 - y] = value;
+            break;
+          case 180:
+            rotated[(height - 1 - y) * width + width - 1 - x] = value;
+            break;
+          default:
+            rotated[(width - 1 - x) * height + y] = value;
+            break;
+        }
+      }
+    }
+    return rotated;
+  }
+
+  private static void assertSameLuminance(LuminanceSource expected, LuminanceSource actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    assertArrayEquals(expected.getMatrix(), actual.getMatrix());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      assertArrayEquals(expected.getRow(y, null), actual.getRow(y, null));
+    }
+  }
+
+  @Test
+  public void testMatchesRotatedCopy() {
+    int width = 83;
+    int height = 50;
+    byte[] data = new byte[width * height * 3 / 2];
+    new Random(1).nextBytes(data);
+    for (int rotation = 0; rotation < 360; rotation += 90) {
+      boolean perpendicular = rotation % 180 != 0;
+      int rotatedWidth = perpendicular ? height : width;
+      int rotatedHeight = perpendicular ? width : height;
+      byte[] rotated = rotate(data, width, height, rotation);
+      LuminanceSource expected = new PlanarYUVLuminanceSource(
+          rotated, rotatedWidth, rotatedHeight, 3, 7, rotatedWidth - 10, rotatedHeight - 9, false);
+      LuminanceSource actual = new RotatedPlanarYUVLuminanceSource(
+          data, width, height, rotation, 3, 7, rotatedWidth - 10, rotatedHeight - 9);
+      assertSameLuminance(expected, actual);
+      assertSameLuminance(expected.crop(5, 2, 20, 33), actual.crop(5, 2, 20, 33));
+    }
+  }
+
+  @Test
+  public void testRotateCounterClockwise() {
+    byte[] data = new byte[40 * 30];
+    new Random(2).nextBytes(data);
+    LuminanceSource source = new RotatedPlanarYUVLuminanceSource(data, 40, 30, 90, 2, 1, 25, 33);
+    LuminanceSource rotated = source.rotateCounterClockwise();
+    assertEquals(33, rotated.getWidth());
+    assertEquals(25, rotated.getHeight());
+    byte[] matrix = source.getMatrix();
+    byte[] rotatedMatrix = rotated.getMatrix();
+    for (int y = 0; y < 33; y++) {
+      for (int x = 0; x < 25; x++) {
+        assertEquals(matrix[y * 25 + x], rotatedMatrix[(24 - x) * 33 + y]);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutsideRotatedFrame() {
+    // Fits the frame as captured, but not once rotated.
+    new RotatedPlanarYUVLuminanceSource(new byte[40 * 30], 40, 30, 270, 0, 0, 40, 30);
+  }
+
+}
@@ -0,0 +1,86 @@
+package com.google.zxing.common;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class AdaptiveThresholdBinarizerTest {
+
+  private static LuminanceSource randomSource(int width, int height, long seed) {
+    byte[] luminances = new byte[width * height];
+    new Random(seed).nextBytes(luminances);
+    return new PlanarYUVLuminanceSource(luminances, width, height, 0, 0, width, height, false);
+  }
+
+  // Straightforward window scan, the reference the integral image must agree with.
+  private static BitMatrix bruteForce(LuminanceSource source, int radius, int offset) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    byte[] luminances = source.getMatrix();
+    BitMatrix matrix = new BitMatrix(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int sum = 0;
+        int count = 0;
+        for (int r = Math.max(y - radius, 0); r <= Math.min(y + radius, height - 1); r++) {
+          for (int c = Math.max(x - radius, 0); c <= Math.min(x + radius, width - 1); c++) {
+            sum += luminances[r * width + c] & 0xFF;
+            count++;
+          }
+        }
+        if ((luminances[y * width + x] & 0xFF) < sum / count - offset) {
+          matrix.set(x, y);
+        }
+      }
+    }
+    return matrix;
+  }
+
+  @Test
+  public void testMatchesWindowScan() throws Exception {
+    LuminanceSource source = randomSource(77, 53, 1);
+    assertEquals(bruteForce(source, 10, 0), new AdaptiveThresholdBinarizer(source).getBlackMatrix());
+    assertEquals(bruteForce(source, 3, 15), new AdaptiveThresholdBinarizer(source, 3, 15).getBlackMatrix());
+  }
+
+  @Test
+  public void testWindowLargerThanImage() throws Exception {
+    LuminanceSource source = randomSource(5, 4, 2);
+    assertEquals(bruteForce(source, 10, 0), new AdaptiveThresholdBinarizer(source).getBlackMatrix());
+  }
+
+  @Test
+  public void testCreatedBinarizersReuseTable() throws Exception {
+    Binarizer prototype = new AdaptiveThresholdBinarizer(randomSource(64, 64, 3), 4, 2);
+    prototype.getBlackMatrix();
+    // A smaller frame after a larger one must not see stale sums from the shared table.
+    LuminanceSource small = randomSource(31, 17, 4);
+    assertEquals(bruteForce(small, 4, 2), prototype.createBinarizer(small).getBlackMatrix());
+    LuminanceSource large = randomSource(90, 70, 5);
+    assertEquals(bruteForce(large, 4, 2), prototype.createBinarizer(large).getBlackMatrix());
+  }
+
+  @Test
+  public void testStripesMatchSingleThread() throws Exception {
+    StripeExecutor executor = new StripeExecutor(4, 0);
+    try {
+      LuminanceSource source = randomSource(123, 61, 6);
+      assertEquals(bruteForce(source, 5, 3),
+                   new AdaptiveThresholdBinarizer(source, 5, 3, executor).getBlackMatrix());
+      assertEquals(new HybridBinarizer(source).getBlackMatrix(),
+                   new HybridBinarizer(source, executor).getBlackMatrix());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
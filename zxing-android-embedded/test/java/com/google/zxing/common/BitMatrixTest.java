@@ -0,0 +1,113 @@
+package com.google.zxing.common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class BitMatrixTest {
+
+  private static BitMatrix randomMatrix(int width, int height, long seed) {
+    Random random = new Random(seed);
+    BitMatrix matrix = new BitMatrix(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if (random.nextBoolean()) {
+          matrix.set(x, y);
+        }
+      }
+    }
+    return matrix;
+  }
+
+  @Test
+  public void testCrop() {
+    BitMatrix matrix = randomMatrix(101, 40, 1);
+    int[][] regions = {{0, 0, 101, 40}, {3, 5, 64, 10}, {32, 0, 33, 1}, {37, 7, 64, 33}, {100, 39, 1, 1}};
+    for (int[] region : regions) {
+      BitMatrix cropped = matrix.crop(region[0], region[1], region[2], region[3]);
+      BitMatrix expected = new BitMatrix(region[2], region[3]);
+      for (int y = 0; y < region[3]; y++) {
+        for (int x = 0; x < region[2]; x++) {
+          if (matrix.get(region[0] + x, region[1] + y)) {
+            expected.set(x, y);
+          }
+        }
+      }
+      assertEquals(expected, cropped);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutside() {
+    new BitMatrix(10, 10).crop(5, 5, 6, 5);
+  }
+
+  @Test
+  public void testRotateCounterClockwise() {
+    BitMatrix matrix = randomMatrix(45, 13, 2);
+    BitMatrix rotated = matrix.rotateCounterClockwise();
+    assertEquals(13, rotated.getWidth());
+    assertEquals(45, rotated.getHeight());
+    for (int y = 0; y < 13; y++) {
+      for (int x = 0; x < 45; x++) {
+        assertEquals(matrix.get(x, y), rotated.get(y, 44 - x));
+      }
+    }
+  }
+
+  @Test
+  public void testSetRowAtOrBelow() {
+    Random random = new Random(3);
+    int width = 75;
+    byte[] luminances = new byte[width * 2];
+    random.nextBytes(luminances);
+    int[] thresholds = new int[width];
+    for (int x = 0; x < width; x++) {
+      thresholds[x] = random.nextInt(258) - 1;
+    }
+    BitMatrix matrix = new BitMatrix(width, 3);
+    matrix.set(0, 1);
+    matrix.setRowAtOrBelow(1, luminances, width, thresholds);
+    assertTrue(matrix.get(0, 1));
+    for (int x = 1; x < width; x++) {
+      assertEquals((luminances[width + x] & 0xff) <= thresholds[x], matrix.get(x, 1));
+      assertFalse(matrix.get(x, 0));
+      assertFalse(matrix.get(x, 2));
+    }
+  }
+
+  @Test
+  public void testDownsample() {
+    BitMatrix matrix = randomMatrix(203, 37, 4);
+    for (int factor = 1; factor <= 5; factor++) {
+      BitMatrix downsampled = matrix.downsample(factor);
+      assertEquals(203 / factor, downsampled.getWidth());
+      assertEquals(37 / factor, downsampled.getHeight());
+      for (int y = 0; y < downsampled.getHeight(); y++) {
+        for (int x = 0; x < downsampled.getWidth(); x++) {
+          assertEquals(matrix.get(x * factor + factor / 2, y * factor + factor / 2), downsampled.get(x, y));
+        }
+      }
+      // Nothing set past the width
+      assertEquals(downsampled, downsampled.crop(0, 0, downsampled.getWidth(), downsampled.getHeight()));
+    }
+  }
+
+  @Test
+  public void testSetBulk() {
+    BitMatrix matrix = new BitMatrix(40, 2);
+    matrix.set(33, 1);
+    matrix.setBulk(32, 1, 0x81);
+    assertTrue(matrix.get(32, 1));
+    assertTrue(matrix.get(33, 1));
+    assertTrue(matrix.get(39, 1));
+    assertFalse(matrix.get(34, 1));
+    assertFalse(matrix.get(32, 0));
+  }
+
+}
@@ -0,0 +1,102 @@
+package com.google.zxing.common;
+
+import com.google.zxing.NotFoundException;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DefaultGridSamplerTest {
+
+  private static final int DIMENSION = 45;
+
+  private static BitMatrix randomModules(long seed) {
+    Random random = new Random(seed);
+    BitMatrix modules = new BitMatrix(DIMENSION);
+    for (int y = 0; y < DIMENSION; y++) {
+      for (int x = 0; x < DIMENSION; x++) {
+        if (random.nextBoolean()) {
+          modules.set(x, y);
+        }
+      }
+    }
+    return modules;
+  }
+
+  // Draws the modules through the inverse of the transform, each module center landing well
+  // inside its area.
+  private static BitMatrix render(BitMatrix modules, PerspectiveTransform toModules, int width, int height) {
+    BitMatrix image = new BitMatrix(width, height);
+    float[] point = new float[2];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        point[0] = x + 0.5f;
+        point[1] = y + 0.5f;
+        toModules.transformPoints(point);
+        int moduleX = (int) Math.floor(point[0]);
+        int moduleY = (int) Math.floor(point[1]);
+        if (moduleX >= 0 && moduleX < DIMENSION && moduleY >= 0 && moduleY < DIMENSION &&
+            modules.get(moduleX, moduleY)) {
+          image.set(x, y);
+        }
+      }
+    }
+    return image;
+  }
+
+  @Test
+  public void testSamplesPerspective() throws NotFoundException {
+    BitMatrix modules = randomModules(1);
+    float[] corners = {120, 40, 560, 70, 600, 460, 90, 420};
+    BitMatrix image = render(modules, PerspectiveTransform.quadrilateralToQuadrilateral(
+        corners[0], corners[1], corners[2], corners[3], corners[4], corners[5], corners[6], corners[7],
+        0, 0, DIMENSION, 0, DIMENSION, DIMENSION, 0, DIMENSION), 640, 480);
+    BitMatrix sampled = new DefaultGridSampler().sampleGrid(image, DIMENSION, DIMENSION,
+        0, 0, DIMENSION, 0, DIMENSION, DIMENSION, 0, DIMENSION,
+        corners[0], corners[1], corners[2], corners[3], corners[4], corners[5], corners[6], corners[7]);
+    assertEquals(modules, sampled);
+  }
+
+  @Test
+  public void testNudgesEdgeOfImage() throws NotFoundException {
+    BitMatrix modules = randomModules(2);
+    // One pixel per module, the grid hanging half a pixel over the top left of the image
+    BitMatrix image = new BitMatrix(DIMENSION, DIMENSION);
+    for (int y = 0; y < DIMENSION; y++) {
+      for (int x = 0; x < DIMENSION; x++) {
+        if (modules.get(x, y)) {
+          image.set(x, y);
+        }
+      }
+    }
+    BitMatrix sampled = new DefaultGridSampler().sampleGrid(image, DIMENSION, DIMENSION,
+        0, 0, DIMENSION, 0, DIMENSION, DIMENSION, 0, DIMENSION,
+        -1.4f, -1.4f, DIMENSION - 1.4f, -1.4f, DIMENSION - 1.4f, DIMENSION - 1.4f, -1.4f, DIMENSION - 1.4f);
+    for (int y = 0; y < DIMENSION; y++) {
+      for (int x = 0; x < DIMENSION; x++) {
+        assertEquals(modules.get(Math.max(x - 1, 0), Math.max(y - 1, 0)), sampled.get(x, y));
+      }
+    }
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testTwistedTransform() throws NotFoundException {
+    // Bottom corners swapped: the grid folds over itself through infinity
+    new DefaultGridSampler().sampleGrid(new BitMatrix(640, 480), DIMENSION, DIMENSION,
+        0, 0, DIMENSION, 0, DIMENSION, DIMENSION, 0, DIMENSION,
+        100, 100, 300, 100, 100, 300, 300, 300);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testOutsideImage() throws NotFoundException {
+    new DefaultGridSampler().sampleGrid(new BitMatrix(640, 480), DIMENSION, DIMENSION,
+        0, 0, DIMENSION, 0, DIMENSION, DIMENSION, 0, DIMENSION,
+        500, 100, 700, 100, 700, 300, 500, 300);
+  }
+
+}
@@ -0,0 +1,137 @@
+package com.google.zxing.common;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class LuminanceGridSamplerTest {
+
+  private static final int SCALE = 5;
+  private static final int LEFT = 13;
+  private static final int TOP = 7;
+  private static final int QUIET_ZONE = 4;
+
+  private final BitMatrix code;
+  private final int width;
+  private final int height;
+  private final byte[] luminances;
+
+  public LuminanceGridSamplerTest() throws Exception {
+    code = new QRCodeWriter().encode("INVOICE 0123456789", BarcodeFormat.QR_CODE, 0, 0);
+    width = code.getWidth() * SCALE + 2 * LEFT;
+    height = code.getHeight() * SCALE + 2 * TOP;
+    luminances = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        // Lighting falls off to the right, darker there than the dark modules on the left
+        int light = 230 - 120 * x / width;
+        int moduleX = (x - LEFT) / SCALE;
+        int moduleY = (y - TOP) / SCALE;
+        boolean dark = x >= LEFT && y >= TOP && moduleX < code.getWidth() && moduleY < code.getHeight() &&
+            code.get(moduleX, moduleY);
+        // The pixel under the center of each module is noise of the other color
+        if ((x - LEFT) % SCALE == SCALE / 2 && (y - TOP) % SCALE == SCALE / 2) {
+          dark = !dark;
+        }
+        luminances[y * width + x] = (byte) (dark ? light / 3 : light);
+      }
+    }
+  }
+
+  private PerspectiveTransform transform() {
+    return transform(0, 0);
+  }
+
+  /**
+   * @return the transform for modules counted from (left, top)
+   */
+  private PerspectiveTransform transform(int left, int top) {
+    float right = LEFT + code.getWidth() * SCALE;
+    float bottom = TOP + code.getHeight() * SCALE;
+    return PerspectiveTransform.quadrilateralToQuadrilateral(
+        -left, -top, code.getWidth() - left, -top,
+        code.getWidth() - left, code.getHeight() - top, -left, code.getHeight() - top,
+        LEFT, TOP, right, TOP, right, bottom, LEFT, bottom);
+  }
+
+  private LuminanceGridSampler sampler() {
+    return new LuminanceGridSampler(
+        new PlanarYUVLuminanceSource(luminances, width, height, 0, 0, width, height, false));
+  }
+
+  @Test
+  public void testSampleGrid() throws Exception {
+    byte[] confidence = new byte[code.getWidth() * code.getHeight()];
+    BitMatrix bits = sampler().sampleGrid(code.getWidth(), code.getHeight(), transform(), confidence);
+    assertEquals(code, bits);
+    // The symbol, inside its quiet zone, has modules of both colors all around
+    for (int y = QUIET_ZONE; y < code.getHeight() - QUIET_ZONE; y++) {
+      for (int x = QUIET_ZONE; x < code.getWidth() - QUIET_ZONE; x++) {
+        assertTrue((confidence[y * code.getWidth() + x] & 0xff) > 128);
+      }
+    }
+
+    // Single pixels at the centers decide every module wrong: sampling where the image is light
+    // gives the dark modules.
+    BitMatrix inverse = new BitMatrix(width, height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if ((luminances[y * width + x] & 0xff) >= 100) {
+          inverse.set(x, y);
+        }
+      }
+    }
+    assertEquals(code, new DefaultGridSampler().sampleGrid(inverse, code.getWidth(), code.getHeight(), transform()));
+  }
+
+  @Test
+  public void testSampleGridByCells() throws Exception {
+    int width = code.getWidth();
+    int height = code.getHeight();
+    int[] columnBounds = {0, 7, 20, width};
+    int[] rowBounds = {0, 12, height};
+    PerspectiveTransform[] transforms = new PerspectiveTransform[6];
+    for (int cellY = 0; cellY < 2; cellY++) {
+      for (int cellX = 0; cellX < 3; cellX++) {
+        transforms[cellY * 3 + cellX] = transform(columnBounds[cellX], rowBounds[cellY]);
+      }
+    }
+    byte[] expectedConfidence = new byte[width * height];
+    BitMatrix expected = sampler().sampleGrid(width, height, transform(), expectedConfidence);
+    byte[] confidence = new byte[width * height];
+    assertEquals(expected, sampler().sampleGrid(width, height, columnBounds, rowBounds, transforms, confidence));
+    assertArrayEquals(expectedConfidence, confidence);
+  }
+
+  @Test
+  public void testConfidence() throws Exception {
+    // A module halfway between dark and light, as under a smudge
+    int moduleX = 12;
+    int moduleY = 10;
+    for (int y = 0; y < SCALE; y++) {
+      for (int x = 0; x < SCALE; x++) {
+        int offset = (TOP + moduleY * SCALE + y) * width + LEFT + moduleX * SCALE + x;
+        int light = 230 - 120 * (LEFT + moduleX * SCALE + x) / width;
+        luminances[offset] = (byte) (light * 2 / 3);
+      }
+    }
+    byte[] confidence = new byte[code.getWidth() * code.getHeight()];
+    sampler().sampleGrid(code.getWidth(), code.getHeight(), transform(), confidence);
+    assertTrue((confidence[moduleY * code.getWidth() + moduleX] & 0xff) < 32);
+    assertTrue((confidence[moduleY * code.getWidth() + moduleX + 1] & 0xff) > 64);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void testOutsideImage() throws Exception {
+    sampler().sampleGrid(code.getWidth() * 2, code.getHeight(), transform(), null);
+  }
+
+}
@@ -0,0 +1,148 @@
+package com.google.zxing.common.reedsolomon;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ReedSolomonDecoderTest {
+
+  private static int[] encode(GenericGF field, int numCodewords, int ecCodewords, Random random) {
+    int[] codewords = new int[numCodewords];
+    for (int i = 0; i < numCodewords - ecCodewords; i++) {
+      codewords[i] = random.nextInt(field.getSize());
+    }
+    new ReedSolomonEncoder(field).encode(codewords, ecCodewords);
+    return codewords;
+  }
+
+  private static void corrupt(int[] codewords, int numErrors, GenericGF field, Random random) {
+    int[] positions = new int[codewords.length];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = i;
+    }
+    for (int e = 0; e < numErrors; e++) {
+      int swap = e + random.nextInt(positions.length - e);
+      int position = positions[swap];
+      positions[swap] = positions[e];
+      codewords[position] ^= 1 + random.nextInt(field.getSize() - 1);
+    }
+  }
+
+  @Test
+  public void testCorrectsUpToHalfTheECCodewords() throws ReedSolomonException {
+    Random random = new Random(1);
+    GenericGF[] fields = {GenericGF.QR_CODE_FIELD_256, GenericGF.DATA_MATRIX_FIELD_256,
+        GenericGF.AZTEC_PARAM, GenericGF.AZTEC_DATA_12};
+    for (GenericGF field : fields) {
+      // The same decoder for blocks of every size, growing and shrinking
+      ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+      for (int i = 0; i < 200; i++) {
+        int numCodewords = 4 + random.nextInt(Math.min(field.getSize() - 1, 120) - 3);
+        int ecCodewords = 2 + random.nextInt(numCodewords - 2);
+        int[] expected = encode(field, numCodewords, ecCodewords, random);
+        int[] received = expected.clone();
+        corrupt(received, random.nextInt(ecCodewords / 2 + 1), field, random);
+        decoder.decode(received, ecCodewords);
+        assertArrayEquals(expected, received);
+      }
+    }
+  }
+
+  @Test
+  public void testCorrectsErasures() throws ReedSolomonException {
+    Random random = new Random(4);
+    for (GenericGF field : new GenericGF[] {GenericGF.QR_CODE_FIELD_256, GenericGF.AZTEC_DATA_6}) {
+      ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+      for (int i = 0; i < 200; i++) {
+        int numCodewords = 4 + random.nextInt(Math.min(field.getSize() - 1, 120) - 3);
+        int ecCodewords = 2 + random.nextInt(numCodewords - 2);
+        int[] expected = encode(field, numCodewords, ecCodewords, random);
+        int[] received = expected.clone();
+        // Erasures take one error-correction codeword each, errors two
+        int numErasures = random.nextInt(ecCodewords + 1);
+        int numErrors = random.nextInt((ecCodewords - numErasures) / 2 + 1);
+        int[] erasures = new int[numErasures];
+        for (int e = 0; e < numErasures; e++) {
+          erasures[e] = numCodewords - 1 - e;
+          if (random.nextBoolean()) {
+            // Erased codewords may also be right
+            received[erasures[e]] = random.nextInt(field.getSize());
+          }
+        }
+        int[] head = Arrays.copyOf(received, numCodewords - numErasures);
+        corrupt(head, numErrors, field, random);
+        System.arraycopy(head, 0, received, 0, head.length);
+        decoder.decode(received, numCodewords, ecCodewords, erasures, numErasures);
+        assertArrayEquals(expected, received);
+      }
+    }
+  }
+
+  @Test(expected = ReedSolomonException.class)
+  public void testTooManyErasures() throws ReedSolomonException {
+    GenericGF field = GenericGF.QR_CODE_FIELD_256;
+    int[] received = encode(field, 20, 4, new Random(5));
+    received[0] ^= 1;
+    new ReedSolomonDecoder(field).decode(received, 20, 4, new int[] {0, 1, 2, 3, 4}, 5);
+  }
+
+  @Test
+  public void testMultiplicationTable() {
+    for (GenericGF field : new GenericGF[] {GenericGF.QR_CODE_FIELD_256, GenericGF.AZTEC_DATA_6}) {
+      int size = field.getSize();
+      byte[] table = field.getMultiplicationTable();
+      assertSame(table, field.getMultiplicationTable());
+      for (int a = 0; a < size; a++) {
+        for (int b = 0; b < size; b++) {
+          assertEquals(field.multiply(a, b), table[a * size + b] & 0xFF);
+        }
+      }
+    }
+    assertNull(GenericGF.AZTEC_DATA_10.getMultiplicationTable());
+  }
+
+  @Test
+  public void testLength() throws ReedSolomonException {
+    Random random = new Random(2);
+    GenericGF field = GenericGF.QR_CODE_FIELD_256;
+    int[] expected = encode(field, 40, 10, random);
+    int[] corrupted = expected.clone();
+    corrupt(corrupted, 5, field, random);
+    int[] received = Arrays.copyOf(corrupted, 60);
+    Arrays.fill(received, 40, 60, 0xFF);
+    new ReedSolomonDecoder(field).decode(received, 40, 10);
+    assertArrayEquals(expected, Arrays.copyOf(received, 40));
+    for (int i = 40; i < 60; i++) {
+      assertEquals(0xFF, received[i]);
+    }
+  }
+
+  @Test
+  public void testTooManyErrors() {
+    Random random = new Random(3);
+    GenericGF field = GenericGF.QR_CODE_FIELD_256;
+    ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+    int failures = 0;
+    for (int i = 0; i < 100; i++) {
+      int[] received = encode(field, 50, 10, random);
+      corrupt(received, 15, field, random);
+      int[] copy = received.clone();
+      try {
+        decoder.decode(received, 10);
+      } catch (ReedSolomonException e) {
+        // Left as received
+        assertArrayEquals(copy, received);
+        failures++;
+      }
+    }
+    // Beyond its capacity the code only rarely decodes to another codeword
+    assertTrue(failures > 90);
+  }
+
+}
@@ -0,0 +1,153 @@
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultMetadataType;
+import com.google.zxing.RotatedPlanarYUVLuminanceSource;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.StripeExecutor;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class ParallelRowsTest {
+
+  private static final int WIDTH = 320;
+  private static final int HEIGHT = 240;
+  private static final int SCALE = 2;
+
+  private final byte[] luminances = new byte[WIDTH * HEIGHT];
+
+  public ParallelRowsTest() {
+    Arrays.fill(luminances, (byte) 255);
+  }
+
+  /**
+   * Draws a Code 128 barcode with its bars across rows top to bottom, or across columns if vertical.
+   */
+  private void draw(String contents, int left, int top, int bottom, boolean vertical) throws Exception {
+    BitMatrix code = new Code128Writer().encode(contents, BarcodeFormat.CODE_128, 0, 1);
+    for (int i = 0; i < code.getWidth() * SCALE; i++) {
+      if (!code.get(i / SCALE, 0)) {
+        continue;
+      }
+      for (int j = top; j < bottom; j++) {
+        if (vertical) {
+          luminances[(left + i) * WIDTH + j] = 0;
+        } else {
+          luminances[j * WIDTH + left + i] = 0;
+        }
+      }
+    }
+  }
+
+  private BinaryBitmap bitmap() {
+    return new BinaryBitmap(new GlobalHistogramBinarizer(
+        new RotatedPlanarYUVLuminanceSource(luminances, WIDTH, HEIGHT, 0, 0, 0, WIDTH, HEIGHT)));
+  }
+
+  private static Map<DecodeHintType,Object> hints(StripeExecutor executor) {
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.CODE_128));
+    hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    if (executor != null) {
+      hints.put(DecodeHintType.PARALLEL_ROWS, executor);
+    }
+    return hints;
+  }
+
+  private void assertParallelMatchesSerial(String expected, Integer orientation) throws Exception {
+    Result serial = new MultiFormatOneDReader(hints(null)).decode(bitmap(), hints(null));
+    assertEquals(expected, serial.getText());
+    StripeExecutor executor = new StripeExecutor(4, 0);
+    try {
+      Map<DecodeHintType,Object> hints = hints(executor);
+      MultiFormatOneDReader reader = new MultiFormatOneDReader(hints);
+      // Twice, to reuse the readers of the other threads
+      for (int i = 0; i < 2; i++) {
+        Result parallel = reader.decode(bitmap(), hints);
+        assertEquals(serial.getText(), parallel.getText());
+        assertArrayEquals(serial.getResultPoints(), parallel.getResultPoints());
+        Map<ResultMetadataType,Object> metadata = parallel.getResultMetadata();
+        assertEquals(orientation, metadata == null ? null : metadata.get(ResultMetadataType.ORIENTATION));
+        assertEquals(serial.getResultMetadata(), metadata);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testNearestToMiddle() throws Exception {
+    // Far above the middle, and then a little below it, which is scanned first
+    draw("FAR 1", 40, 20, 40, false);
+    draw("NEAR 2", 60, 140, 150, false);
+    assertParallelMatchesSerial("NEAR 2", null);
+  }
+
+  @Test
+  public void testRotated() throws Exception {
+    draw("TURN 3", 5, 150, 180, true);
+    assertParallelMatchesSerial("TURN 3", 270);
+  }
+
+  @Test
+  public void testNotFound() throws Exception {
+    StripeExecutor executor = new StripeExecutor(4, 0);
+    try {
+      new MultiFormatOneDReader(hints(executor)).decode(bitmap(), hints(executor));
+      fail();
+    } catch (NotFoundException nfe) {
+      // continue
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testRowDecoders() {
+    assertNotNull(new MultiFormatOneDReader(hints(null)).newRowDecoder());
+    // RSS readers pair up rows, so all the readers decode serially
+    assertNull(new MultiFormatOneDReader(null).newRowDecoder());
+  }
+
+  @Test
+  public void testExecuteInOrder() {
+    StripeExecutor executor = new StripeExecutor(4, 0);
+    try {
+      final List<Integer> units = Collections.synchronizedList(new ArrayList<Integer>());
+      StripeExecutor.executeInOrder(executor, 1, 1000, new StripeExecutor.OrderedTask() {
+        @Override
+        public boolean run(int unit, int worker) {
+          assertTrue(worker >= 0 && worker < 4);
+          units.add(unit);
+          return unit == 100 || unit == 300;
+        }
+      });
+      Collections.sort(units);
+      // Every unit up to the first to stop, and none after it but those already handed out
+      for (int i = 0; i <= 100; i++) {
+        assertEquals(i, (int) units.get(i));
+      }
+      assertTrue(units.size() <= 104);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,74 @@
+package com.google.zxing.oned;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PatternClassifierTest {
+
+  private static final int[][] ITF_PATTERNS = {
+      {1, 1, 2, 2, 1}, {2, 1, 1, 1, 2}, {1, 2, 1, 1, 2}, {2, 2, 1, 1, 1}, {1, 1, 2, 1, 2},
+      {2, 1, 2, 1, 1}, {1, 2, 2, 1, 1}, {1, 1, 1, 2, 2}, {2, 1, 1, 2, 1}, {1, 2, 1, 2, 1},
+      {1, 1, 3, 3, 1}, {3, 1, 1, 1, 3}, {1, 3, 1, 1, 3}, {3, 3, 1, 1, 1}, {1, 1, 3, 1, 3},
+      {3, 1, 3, 1, 1}, {1, 3, 3, 1, 1}, {1, 1, 1, 3, 3}, {3, 1, 1, 3, 1}, {1, 3, 1, 3, 1}};
+
+  /**
+   * Checks classify() against classifyAll() on counters drawn around each pattern, scaled and
+   * blurred by up to a module either way.
+   */
+  private static void assertClassifiesAsAll(PatternClassifier classifier, int[][] patterns, int numCounters) {
+    Random random = new Random(numCounters);
+    int[] counters = new int[numCounters];
+    int matched = 0;
+    for (int i = 0; i < 20000; i++) {
+      int[] pattern = patterns[random.nextInt(patterns.length)];
+      int scale = 1 + random.nextInt(6);
+      for (int j = 0; j < numCounters; j++) {
+        counters[j] = Math.max(0, pattern[j] * scale + random.nextInt(2 * scale + 1) - scale);
+      }
+      int expected = classifier.classifyAll(counters);
+      assertEquals(expected, classifier.classify(counters));
+      if (expected >= 0) {
+        matched++;
+      }
+    }
+    // Both matches and misses are covered
+    assertTrue(matched > 1000 && matched < 19000);
+  }
+
+  @Test
+  public void testCode128() {
+    assertClassifiesAsAll(new PatternClassifier(Code128Reader.CODE_PATTERNS, 0.25f, 0.7f, false),
+        Code128Reader.CODE_PATTERNS, 6);
+  }
+
+  @Test
+  public void testUPCEAN() {
+    assertClassifiesAsAll(UPCEANReader.L_CLASSIFIER, UPCEANReader.L_PATTERNS, 4);
+    assertClassifiesAsAll(UPCEANReader.L_AND_G_CLASSIFIER, UPCEANReader.L_AND_G_PATTERNS, 4);
+  }
+
+  @Test
+  public void testITF() {
+    // Two widths of pattern, and ties rejected
+    assertClassifiesAsAll(new PatternClassifier(ITF_PATTERNS, 0.38f, 0.5f, true), ITF_PATTERNS, 5);
+  }
+
+  @Test
+  public void testExactPattern() {
+    PatternClassifier classifier = new PatternClassifier(Code128Reader.CODE_PATTERNS, 0.25f, 0.7f, false);
+    for (int i = 0; i < Code128Reader.CODE_PATTERNS.length; i++) {
+      int[] counters = new int[6];
+      for (int j = 0; j < counters.length; j++) {
+        counters[j] = Code128Reader.CODE_PATTERNS[i][j] * 3;
+      }
+      assertEquals(i, classifier.classify(counters));
+    }
+  }
+
+}
@@ -0,0 +1,146 @@
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RowRunsTest {
+
+  private static BitArray randomRow(Random random, int size) {
+    BitArray row = new BitArray(size);
+    int x = 0;
+    boolean black = random.nextBoolean();
+    while (x < size) {
+      int length = 1 + random.nextInt(6);
+      if (black) {
+        row.setRange(x, Math.min(x + length, size));
+      }
+      x += length;
+      black = !black;
+    }
+    return row;
+  }
+
+  private static void assertSameRow(BitArray expected, RowRuns runs) {
+    int size = expected.getSize();
+    assertEquals(size, runs.getSize());
+    int run = 0;
+    for (int i = 0; i < size; i++) {
+      assertEquals(expected.get(i), runs.get(i));
+      assertEquals(expected.getNextSet(i), runs.getNextSet(i));
+      assertEquals(expected.getNextUnset(i), runs.getNextUnset(i));
+      if (i == runs.getRunEnd(run)) {
+        run++;
+      }
+      assertEquals(run, runs.getRun(i));
+      assertTrue(runs.getRunStart(run) <= i && i < runs.getRunEnd(run));
+      assertEquals(expected.get(i), runs.isBlack(run));
+      for (int end = i; end <= Math.min(size, i + 8); end++) {
+        assertEquals(expected.isRange(i, end, true), runs.isRange(i, end, true));
+        assertEquals(expected.isRange(i, end, false), runs.isRange(i, end, false));
+      }
+    }
+    assertEquals(run + 1, runs.getNumRuns());
+    assertEquals(size, runs.getNextSet(size));
+    assertEquals(runs.getNumRuns(), runs.getRun(size));
+  }
+
+  @Test
+  public void testRuns() {
+    Random random = new Random(1);
+    RowRuns runs = new RowRuns();
+    for (int size : new int[] {1, 31, 32, 33, 100, 257}) {
+      BitArray row = randomRow(random, size);
+      runs.setRow(row);
+      assertSameRow(row, runs);
+      // Reading from the other end is the same as reading the reversed row
+      BitArray reversed = row.clone();
+      reversed.reverse();
+      runs.reverse();
+      assertSameRow(reversed, runs);
+      runs.reverse();
+      assertSameRow(row, runs);
+    }
+  }
+
+  @Test
+  public void testRecordPattern() throws NotFoundException {
+    Random random = new Random(2);
+    BitArray row = randomRow(random, 150);
+    RowRuns runs = new RowRuns(row);
+    for (int reverse = 0; reverse < 2; reverse++) {
+      for (int numCounters = 1; numCounters <= 9; numCounters += 4) {
+        int[] expected = new int[numCounters];
+        int[] counters = new int[numCounters];
+        for (int start = 0; start <= row.getSize(); start++) {
+          boolean found;
+          try {
+            OneDReader.recordPattern(row, start, expected);
+            found = true;
+          } catch (NotFoundException nfe) {
+            found = false;
+          }
+          try {
+            OneDReader.recordPattern(runs, start, counters);
+            assertTrue(found);
+            assertArrayEquals(expected, counters);
+          } catch (NotFoundException nfe) {
+            assertFalse(found);
+          }
+
+          if (start < row.getSize()) {
+            try {
+              OneDReader.recordPatternInReverse(row, start, expected);
+              found = true;
+            } catch (NotFoundException nfe) {
+              found = false;
+            }
+            try {
+              OneDReader.recordPatternInReverse(runs, start, counters);
+              assertTrue(found);
+              assertArrayEquals(expected, counters);
+            } catch (NotFoundException nfe) {
+              assertFalse(found);
+            }
+          }
+        }
+      }
+      row.reverse();
+      runs.reverse();
+    }
+  }
+
+  @Test
+  public void testDecodeReversed() throws Exception {
+    BitMatrix code = new Code128Writer().encode("RUNS 0123", BarcodeFormat.CODE_128, 0, 1);
+    BitArray row = code.getRow(0, null);
+    row.reverse();
+    RowRuns runs = new RowRuns(row);
+    MultiFormatOneDReader reader = new MultiFormatOneDReader(null);
+    try {
+      reader.decodeRow(0, runs, null);
+      fail();
+    } catch (NotFoundException nfe) {
+      // continue
+    }
+    runs.reverse();
+    Result result = reader.decodeRow(0, runs, null);
+    assertEquals(BarcodeFormat.CODE_128, result.getBarcodeFormat());
+    assertEquals("RUNS 0123", result.getText());
+    // The reader leaves the row read the way it found it
+    runs.reverse();
+    assertSameRow(row, runs);
+  }
+
+}
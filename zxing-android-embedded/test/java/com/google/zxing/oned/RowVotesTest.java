@@ -0,0 +1,131 @@
+package com.google.zxing.oned;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class RowVotesTest {
+
+  private static final int WIDTH = 320;
+  private static final int HEIGHT = 240;
+  // Rows scanned first without trying harder: the middle, then 7 rows below and above it
+  private static final int[] ROWS = {120, 127, 113};
+
+  private final byte[] luminances = new byte[WIDTH * HEIGHT];
+
+  public RowVotesTest() {
+    Arrays.fill(luminances, (byte) 255);
+  }
+
+  /**
+   * Draws a Code 39 barcode across a few rows around one row.
+   */
+  private void draw(String contents, int row) throws Exception {
+    BitMatrix code = new Code39Writer().encode(contents, BarcodeFormat.CODE_39, 0, 1);
+    for (int i = 0; i < code.getWidth() * 2; i++) {
+      if (code.get(i / 2, 0)) {
+        for (int y = row - 2; y <= row + 2; y++) {
+          luminances[y * WIDTH + 40 + i] = 0;
+        }
+      }
+    }
+  }
+
+  private void clear() {
+    Arrays.fill(luminances, (byte) 255);
+  }
+
+  private BinaryBitmap bitmap() {
+    return new BinaryBitmap(new GlobalHistogramBinarizer(
+        new PlanarYUVLuminanceSource(luminances, WIDTH, HEIGHT, 0, 0, WIDTH, HEIGHT, false)));
+  }
+
+  private static Map<DecodeHintType,Object> hints(int votes, DecodeHintType... flags) {
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(BarcodeFormat.CODE_39));
+    hints.put(DecodeHintType.ROW_VOTES, votes);
+    for (DecodeHintType flag : flags) {
+      hints.put(flag, Boolean.TRUE);
+    }
+    return hints;
+  }
+
+  private static void assertNotFound(MultiFormatOneDReader reader, BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    try {
+      reader.decode(image, hints);
+      fail();
+    } catch (NotFoundException nfe) {
+      // continue
+    } catch (Exception e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  @Test
+  public void testVotesNeeded() throws Exception {
+    draw("VOTE", ROWS[0]);
+    MultiFormatOneDReader reader = new MultiFormatOneDReader(null);
+    assertEquals("VOTE", reader.decode(bitmap(), hints(1)).getText());
+    // One row decodes it, which is not enough
+    assertNotFound(reader, bitmap(), hints(2));
+    draw("VOTE", ROWS[1]);
+    Result result = reader.decode(bitmap(), hints(2));
+    assertEquals("VOTE", result.getText());
+    // The result of the row which confirmed it
+    assertEquals(ROWS[1], (int) result.getResultPoints()[0].getY());
+  }
+
+  @Test
+  public void testVotesAcrossFrames() throws Exception {
+    draw("VOTE", ROWS[0]);
+    MultiFormatOneDReader reader = new MultiFormatOneDReader(null);
+    Map<DecodeHintType,Object> hints = hints(3, DecodeHintType.TRACK_BETWEEN_FRAMES);
+    assertNotFound(reader, bitmap(), hints);
+    reader.reset();
+    assertNotFound(reader, bitmap(), hints);
+    reader.reset();
+    assertEquals("VOTE", reader.decode(bitmap(), hints).getText());
+
+    // Votes start again after a result, and after a frame without the barcode
+    assertNotFound(reader, bitmap(), hints);
+    assertNotFound(reader, bitmap(), hints);
+    clear();
+    assertNotFound(reader, bitmap(), hints);
+    draw("VOTE", ROWS[0]);
+    assertNotFound(reader, bitmap(), hints);
+    assertNotFound(reader, bitmap(), hints);
+    assertEquals("VOTE", reader.decode(bitmap(), hints).getText());
+
+    // Without tracking, only the rows of the frame count
+    assertNotFound(reader, bitmap(), hints(2));
+    assertNotFound(reader, bitmap(), hints(2));
+  }
+
+  @Test
+  public void testDifferentTextsDoNotVote() throws Exception {
+    // Each character is read by two rows, but no text is
+    draw("AB1", ROWS[0]);
+    draw("XB2", ROWS[1]);
+    draw("AC2", ROWS[2]);
+    MultiFormatOneDReader reader = new MultiFormatOneDReader(null);
+    assertNotFound(reader, bitmap(), hints(2));
+  }
+
+}
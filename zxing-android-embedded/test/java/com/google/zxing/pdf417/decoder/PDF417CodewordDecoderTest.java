@@ -0,0 +1,100 @@
+package com.google.zxing.pdf417.decoder;
+
+import com.google.zxing.pdf417.PDF417Common;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PDF417CodewordDecoderTest {
+
+  private static final float[][] RATIOS_TABLE =
+      new float[PDF417Common.SYMBOL_TABLE.length][PDF417Common.BARS_IN_MODULE];
+
+  static {
+    for (int i = 0; i < PDF417Common.SYMBOL_TABLE.length; i++) {
+      int currentSymbol = PDF417Common.SYMBOL_TABLE[i];
+      int currentBit = currentSymbol & 0x1;
+      for (int j = 0; j < PDF417Common.BARS_IN_MODULE; j++) {
+        float size = 0.0f;
+        while ((currentSymbol & 0x1) == currentBit) {
+          size += 1.0f;
+          currentSymbol >>= 1;
+        }
+        currentBit = currentSymbol & 0x1;
+        RATIOS_TABLE[i][PDF417Common.BARS_IN_MODULE - j - 1] = size / PDF417Common.MODULES_IN_CODEWORD;
+      }
+    }
+  }
+
+  /**
+   * Compares the counts with every symbol in turn.
+   */
+  private static int linearClosestDecodedValue(int[] moduleBitCount) {
+    int bitCountSum = 0;
+    for (int count : moduleBitCount) {
+      bitCountSum += count;
+    }
+    float[] bitCountRatios = new float[PDF417Common.BARS_IN_MODULE];
+    if (bitCountSum > 1) {
+      for (int i = 0; i < bitCountRatios.length; i++) {
+        bitCountRatios[i] = moduleBitCount[i] / (float) bitCountSum;
+      }
+    }
+    float bestMatchError = Float.MAX_VALUE;
+    int bestMatch = -1;
+    for (int j = 0; j < RATIOS_TABLE.length; j++) {
+      float error = 0.0f;
+      for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
+        float diff = RATIOS_TABLE[j][k] - bitCountRatios[k];
+        error += diff * diff;
+      }
+      if (error < bestMatchError) {
+        bestMatchError = error;
+        bestMatch = PDF417Common.SYMBOL_TABLE[j];
+      }
+    }
+    return bestMatch;
+  }
+
+  @Test
+  public void testClosestDecodedValue() {
+    Random random = new Random(1);
+    int[] moduleBitCount = new int[PDF417Common.BARS_IN_MODULE];
+    for (int i = 0; i < 20000; i++) {
+      float[] ratios = RATIOS_TABLE[random.nextInt(RATIOS_TABLE.length)];
+      int scale = 1 + random.nextInt(5);
+      for (int k = 0; k < moduleBitCount.length; k++) {
+        // Smudged bars, up to a module or so wider or narrower
+        int width = Math.round(ratios[k] * PDF417Common.MODULES_IN_CODEWORD * scale);
+        moduleBitCount[k] = Math.max(0, width + random.nextInt(2 * scale + 1) - scale);
+      }
+      assertEquals(linearClosestDecodedValue(moduleBitCount),
+                   PDF417CodewordDecoder.getClosestDecodedValue(moduleBitCount));
+    }
+  }
+
+  @Test
+  public void testDegenerateCounts() {
+    Random random = new Random(2);
+    int[] moduleBitCount = new int[PDF417Common.BARS_IN_MODULE];
+    for (int i = 0; i < 2000; i++) {
+      for (int k = 0; k < moduleBitCount.length; k++) {
+        // Mostly empty, and ties between equally bad symbols
+        moduleBitCount[k] = random.nextInt(4) == 0 ? random.nextInt(3) : 0;
+      }
+      assertEquals(linearClosestDecodedValue(moduleBitCount),
+                   PDF417CodewordDecoder.getClosestDecodedValue(moduleBitCount));
+    }
+    // A count far wider than any bar
+    moduleBitCount = new int[] {100, 1, 1, 1, 1, 1, 1, 1};
+    assertEquals(linearClosestDecodedValue(moduleBitCount),
+                 PDF417CodewordDecoder.getClosestDecodedValue(moduleBitCount));
+  }
+
+}
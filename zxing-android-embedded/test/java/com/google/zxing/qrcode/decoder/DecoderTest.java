@@ -0,0 +1,151 @@
+package com.google.zxing.qrcode.decoder;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DecoderTest {
+
+  private static BitMatrix encode(String contents, int version) throws Exception {
+    Map<EncodeHintType,Object> hints = new EnumMap<>(EncodeHintType.class);
+    hints.put(EncodeHintType.MARGIN, 0);
+    hints.put(EncodeHintType.QR_VERSION, version);
+    return new QRCodeWriter().encode(contents, BarcodeFormat.QR_CODE, 0, 0, hints);
+  }
+
+  @Test
+  public void testDecodeLeavesMatrixUnchanged() throws Exception {
+    Decoder decoder = new Decoder();
+    for (int version : new int[] {1, 2, 7, 21, 40}) {
+      String contents = "VERSION " + version;
+      BitMatrix bits = encode(contents, version);
+      BitMatrix copy = bits.clone();
+      assertEquals(contents, decoder.decode(bits).getText());
+      assertEquals(copy, bits);
+      // Decoding again uses the read plan built the first time
+      assertEquals(contents, decoder.decode(bits).getText());
+    }
+  }
+
+  @Test
+  public void testDecodeMirrored() throws Exception {
+    BitMatrix bits = encode("MIRRORED", 10);
+    int dimension = bits.getWidth();
+    BitMatrix mirrored = new BitMatrix(dimension);
+    for (int y = 0; y < dimension; y++) {
+      for (int x = 0; x < dimension; x++) {
+        if (bits.get(x, y)) {
+          mirrored.set(y, x);
+        }
+      }
+    }
+    assertEquals("MIRRORED", new Decoder().decode(mirrored).getText());
+  }
+
+  /**
+   * Flips one module in each of the first numCodewords codewords of bits, and marks it as the
+   * only unreliable one of its codeword.
+   */
+  private static void damage(BitMatrix bits, int version, int numCodewords, byte[] confidence) throws Exception {
+    Arrays.fill(confidence, (byte) 0xFF);
+    BitMatrix functionPattern = Version.getVersionForNumber(version).buildFunctionPattern();
+    byte[] codewords = new BitMatrixParser(bits).readCodewords();
+    boolean[] damaged = new boolean[codewords.length];
+    int dimension = bits.getWidth();
+    for (int y = 0; y < dimension && numCodewords > 0; y++) {
+      for (int x = 0; x < dimension && numCodewords > 0; x++) {
+        if (!functionPattern.get(x, y)) {
+          bits.flip(x, y);
+          byte[] changed = new BitMatrixParser(bits).readCodewords();
+          int k = 0;
+          while (changed[k] == codewords[k]) {
+            k++;
+          }
+          if (damaged[k]) {
+            bits.flip(x, y);
+          } else {
+            damaged[k] = true;
+            confidence[y * dimension + x] = 10;
+            codewords = changed;
+            numCodewords--;
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDecodeWithErasures() throws Exception {
+    // Version 3, level L: one block with 15 error-correction codewords, which correct 7 errors
+    BitMatrix bits = encode("ERASURES", 3);
+    byte[] confidence = new byte[bits.getWidth() * bits.getHeight()];
+    damage(bits, 3, 10, confidence);
+    Decoder decoder = new Decoder();
+    try {
+      // On failure, the matrix may be left mirrored
+      decoder.decode(bits.clone());
+      fail();
+    } catch (ChecksumException e) {
+      // expected
+    }
+    assertEquals("ERASURES", decoder.decode(bits, confidence, null).getText());
+
+    // Read mirrored, the confidence follows the modules
+    int dimension = bits.getWidth();
+    BitMatrix mirrored = new BitMatrix(dimension);
+    for (int y = 0; y < dimension; y++) {
+      for (int x = 0; x < dimension; x++) {
+        if (bits.get(x, y)) {
+          mirrored.set(y, x);
+        }
+      }
+    }
+    byte[] mirroredConfidence = new byte[confidence.length];
+    for (int y = 0; y < dimension; y++) {
+      for (int x = 0; x < dimension; x++) {
+        mirroredConfidence[x * dimension + y] = confidence[y * dimension + x];
+      }
+    }
+    assertEquals("ERASURES", decoder.decode(mirrored, mirroredConfidence, null).getText());
+  }
+
+  @Test
+  public void testRandomBlocksNotCorrected() {
+    // Blocks of version 1, level L: 26 codewords, 7 of them for error correction. Random ones are
+    // hardly ever within reach of a valid block, with or without their unreliable codewords erased.
+    Random random = new Random(19);
+    Decoder decoder = new Decoder();
+    byte[] codewords = new byte[26];
+    byte[] confidence = new byte[26];
+    int corrected = 0;
+    for (int i = 0; i < 20000; i++) {
+      random.nextBytes(codewords);
+      Arrays.fill(confidence, (byte) 0xFF);
+      for (int j = 0; j < 5; j++) {
+        confidence[random.nextInt(confidence.length)] = (byte) random.nextInt(96);
+      }
+      try {
+        decoder.correctErrors(codewords, 19, confidence);
+        corrected++;
+      } catch (ChecksumException e) {
+        // expected
+      }
+    }
+    assertEquals(0, corrected);
+  }
+
+}
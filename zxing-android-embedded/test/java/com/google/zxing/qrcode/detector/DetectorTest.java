@@ -0,0 +1,101 @@
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.FormatException;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.DetectorResult;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.Decoder;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DetectorTest {
+
+  private static BitMatrix frame(BitMatrix code, int scale, int left, int top) {
+    BitMatrix frame = new BitMatrix(1920, 1080);
+    for (int y = 0; y < code.getHeight() * scale; y++) {
+      for (int x = 0; x < code.getWidth() * scale; x++) {
+        if (code.get(x / scale, y / scale)) {
+          frame.set(left + x, top + y);
+        }
+      }
+    }
+    return frame;
+  }
+
+  @Test
+  public void testDownsampleFactor() {
+    assertEquals(1, Detector.getDownsampleFactor(640, 480));
+    assertEquals(2, Detector.getDownsampleFactor(1280, 720));
+    assertEquals(2, Detector.getDownsampleFactor(1920, 1080));
+    assertEquals(4, Detector.getDownsampleFactor(3840, 2160));
+  }
+
+  @Test
+  public void testCoarseToFine() throws Exception {
+    Map<DecodeHintType,Object> plainHints = new EnumMap<>(DecodeHintType.class);
+    plainHints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    Map<DecodeHintType,Object> hints = new EnumMap<>(plainHints);
+    hints.put(DecodeHintType.COARSE_TO_FINE, Boolean.TRUE);
+    // Modules many pixels wide, and as narrow as the downsampling factor.
+    int[][] cases = {{9, 700, 200}, {2, 1500, 900}};
+    for (int[] c : cases) {
+      BitMatrix code = new QRCodeWriter().encode("INVOICE 0123456789", BarcodeFormat.QR_CODE, 0, 0);
+      BitMatrix image = frame(code, c[0], c[1], c[2]);
+      DetectorResult expected = new Detector(image).detect(plainHints);
+      DetectorResult actual = new Detector(image).detect(hints);
+      assertEquals(expected.getBits(), actual.getBits());
+      ResultPoint[] expectedPoints = expected.getPoints();
+      ResultPoint[] actualPoints = actual.getPoints();
+      for (int i = 0; i < expectedPoints.length; i++) {
+        assertEquals(expectedPoints[i].getX(), actualPoints[i].getX(), c[0]);
+        assertEquals(expectedPoints[i].getY(), actualPoints[i].getY(), c[0]);
+      }
+    }
+  }
+
+  @Test
+  public void testAlignmentGrid() throws Exception {
+    Map<EncodeHintType,Object> encodeHints = new EnumMap<>(EncodeHintType.class);
+    encodeHints.put(EncodeHintType.QR_VERSION, 15);
+    BitMatrix code = new QRCodeWriter().encode("CURVED INVOICE", BarcodeFormat.QR_CODE, 0, 0, encodeHints);
+    // Bent like a page lying open: the middle column sits two modules above the sides
+    int n = code.getWidth();
+    float scale = 4.0f;
+    BitMatrix image = new BitMatrix((int) (n * scale) + 40, (int) ((n + 2) * scale) + 40);
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        float u = (x - 20) / scale;
+        float bend = (u - n / 2.0f) / (n / 2.0f);
+        float v = (y - 20) / scale - 2.0f * bend * bend;
+        if (u >= 0 && v >= 0 && u < n && v < n && code.get((int) u, (int) v)) {
+          image.set(x, y);
+        }
+      }
+    }
+
+    Decoder decoder = new Decoder();
+    try {
+      decoder.decode(new Detector(image).detect().getBits());
+      fail();
+    } catch (ChecksumException | FormatException e) {
+      // One transform for the whole symbol does not follow the bend
+    }
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    hints.put(DecodeHintType.ALIGNMENT_GRID, Boolean.TRUE);
+    assertEquals("CURVED INVOICE", decoder.decode(new Detector(image).detect(hints).getBits()).getText());
+  }
+
+}
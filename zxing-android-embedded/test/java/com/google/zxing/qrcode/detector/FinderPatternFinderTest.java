@@ -0,0 +1,104 @@
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class FinderPatternFinderTest {
+
+  /**
+   * Renders a code scaled, turned by an angle and offset, with a fraction of its pixels flipped.
+   */
+  private static BitMatrix render(BitMatrix code, float scale, double angle, int left, int top,
+                                  float noise, Random random) {
+    int width = 400;
+    int height = 300;
+    BitMatrix image = new BitMatrix(width, height);
+    double cos = Math.cos(angle);
+    double sin = Math.sin(angle);
+    float half = code.getWidth() * scale / 2.0f;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        double dx = x - left - half;
+        double dy = y - top - half;
+        int u = (int) Math.floor((cos * dx + sin * dy + half) / scale);
+        int v = (int) Math.floor((-sin * dx + cos * dy + half) / scale);
+        boolean black = u >= 0 && v >= 0 && u < code.getWidth() && v < code.getHeight() && code.get(u, v);
+        if (black != (random.nextFloat() < noise)) {
+          image.set(x, y);
+        }
+      }
+    }
+    return image;
+  }
+
+  private static FinderPatternInfo find(FinderPatternFinder finder, Map<DecodeHintType,?> hints) {
+    try {
+      return finder.find(hints);
+    } catch (NotFoundException nfe) {
+      return null;
+    }
+  }
+
+  private static FinderPatternInfo find(PixelFinderPatternFinder finder, Map<DecodeHintType,?> hints) {
+    try {
+      return finder.find(hints);
+    } catch (NotFoundException nfe) {
+      return null;
+    }
+  }
+
+  private static void assertSamePattern(FinderPattern expected, FinderPattern actual) {
+    assertEquals(expected.getX(), actual.getX(), 0.0f);
+    assertEquals(expected.getY(), actual.getY(), 0.0f);
+    assertEquals(expected.getEstimatedModuleSize(), actual.getEstimatedModuleSize(), 0.0f);
+    assertEquals(expected.getCount(), actual.getCount());
+  }
+
+  @Test
+  public void testSameAsPixelScan() throws Exception {
+    Random random = new Random(11);
+    Map<DecodeHintType,Object> tryHarder = new EnumMap<>(DecodeHintType.class);
+    tryHarder.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+    Map<EncodeHintType,Object> encodeHints = new EnumMap<>(EncodeHintType.class);
+    int found = 0;
+    for (int i = 0; i < 200; i++) {
+      encodeHints.put(EncodeHintType.QR_VERSION, 1 + random.nextInt(6));
+      BitMatrix code = new QRCodeWriter().encode("FINDER " + i, BarcodeFormat.QR_CODE, 0, 0, encodeHints);
+      float scale = 1.5f + random.nextFloat() * 4.5f;
+      int maxOffset = Math.max(1, 300 - (int) (code.getWidth() * scale));
+      BitMatrix image = render(code, scale, random.nextDouble() * 0.6 - 0.3,
+          random.nextInt(maxOffset), random.nextInt(maxOffset), random.nextFloat() * 0.01f, random);
+      Map<DecodeHintType,?> hints = random.nextBoolean() ? tryHarder : null;
+
+      FinderPatternInfo expected = find(new PixelFinderPatternFinder(image), hints);
+      FinderPatternInfo actual = find(new FinderPatternFinder(image), hints);
+      if (expected == null) {
+        assertNull(actual);
+        continue;
+      }
+      found++;
+      assertNotNull(actual);
+      assertSamePattern(expected.getBottomLeft(), actual.getBottomLeft());
+      assertSamePattern(expected.getTopLeft(), actual.getTopLeft());
+      assertSamePattern(expected.getTopRight(), actual.getTopRight());
+    }
+    // Most codes are found, so the comparison covers the whole scan
+    assertTrue(found > 100);
+  }
+
+}
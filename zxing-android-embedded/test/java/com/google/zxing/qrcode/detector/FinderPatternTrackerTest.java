@@ -0,0 +1,82 @@
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.DetectorResult;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class FinderPatternTrackerTest {
+
+  private static BitMatrix frame(BitMatrix code, int scale, int left, int top) {
+    BitMatrix frame = new BitMatrix(640, 480);
+    for (int y = 0; y < code.getHeight() * scale; y++) {
+      for (int x = 0; x < code.getWidth() * scale; x++) {
+        if (code.get(x / scale, y / scale)) {
+          frame.set(left + x, top + y);
+        }
+      }
+    }
+    return frame;
+  }
+
+  private static void assertSamePoints(ResultPoint[] expected, ResultPoint[] actual) {
+    assertEquals(expected.length, actual.length);
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i].getX(), actual[i].getX(), 0.01);
+      assertEquals(expected[i].getY(), actual[i].getY(), 0.01);
+    }
+  }
+
+  @Test
+  public void testTracksMovingCode() throws Exception {
+    BitMatrix code = new QRCodeWriter().encode("INVOICE 0123456789", BarcodeFormat.QR_CODE, 0, 0);
+    Map<DecodeHintType,Object> hints = new EnumMap<>(DecodeHintType.class);
+    FinderPatternTracker tracker = new FinderPatternTracker();
+
+    DetectorResult first = new Detector(frame(code, 4, 100, 80)).detect(hints, tracker);
+    assertTrue(tracker.isTracking());
+    int[] region = tracker.getRegion(640, 480);
+    assertNotNull(region);
+
+    // Moved a little: found within the region, at the same place a full scan finds it.
+    BitMatrix moved = frame(code, 4, 110, 86);
+    DetectorResult second = new Detector(moved).detect(hints, tracker);
+    assertSamePoints(new Detector(moved).detect(hints).getPoints(), second.getPoints());
+    assertEquals(first.getBits(), second.getBits());
+
+    // Moved out of the region: found by the full scan instead.
+    BitMatrix jumped = frame(code, 4, 450, 300);
+    DetectorResult third = new Detector(jumped).detect(hints, tracker);
+    assertSamePoints(new Detector(jumped).detect(hints).getPoints(), third.getPoints());
+  }
+
+  @Test
+  public void testForgetsLostCode() throws Exception {
+    BitMatrix code = new QRCodeWriter().encode("INVOICE", BarcodeFormat.QR_CODE, 0, 0);
+    FinderPatternTracker tracker = new FinderPatternTracker();
+    new Detector(frame(code, 3, 20, 20)).detect(null, tracker);
+    assertTrue(tracker.isTracking());
+    try {
+      new Detector(new BitMatrix(640, 480)).detect(null, tracker);
+      fail();
+    } catch (NotFoundException e) {
+      // expected
+    }
+    assertFalse(tracker.isTracking());
+    assertNull(tracker.getRegion(640, 480));
+  }
+
+}
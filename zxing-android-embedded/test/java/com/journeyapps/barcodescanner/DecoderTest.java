@@ -0,0 +1,119 @@
+package com.journeyapps.barcodescanner;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.RotatedPlanarYUVLuminanceSource;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class DecoderTest {
+    private final List<String> attempts = new ArrayList<>();
+    private String working;
+
+    private final LuminanceSource source = new PlanarYUVLuminanceSource(new byte[64], 8, 8, 0, 0, 8, 8, false);
+
+    private BinarizerStrategy strategy(final String name) {
+        return new BinarizerStrategy() {
+            @Override
+            public Binarizer createBinarizer(LuminanceSource source, Binarizer previous) {
+                attempts.add(name);
+                return new GlobalHistogramBinarizer(source);
+            }
+        };
+    }
+
+    // Succeeds only when the last binarizer created came from the working strategy.
+    private final Reader reader = new Reader() {
+        @Override
+        public Result decode(BinaryBitmap image) throws NotFoundException {
+            if (attempts.get(attempts.size() - 1).equals(working)) {
+                return new Result(working, null, null, BarcodeFormat.QR_CODE);
+            }
+            throw NotFoundException.getNotFoundInstance();
+        }
+
+        @Override
+        public Result decode(BinaryBitmap image, Map<DecodeHintType, ?> hints) throws NotFoundException {
+            return decode(image);
+        }
+
+        @Override
+        public void reset() {
+        }
+    };
+
+    @Test
+    public void testFallbackAndPreference() {
+        Decoder decoder = new Decoder(reader, Arrays.asList(strategy("a"), strategy("b"), strategy("c")));
+
+        working = "c";
+        assertEquals("c", decoder.decode(source).getText());
+        assertEquals(Arrays.asList("a", "b", "c"), attempts);
+
+        // The last successful strategy is tried first, then the rest in order.
+        attempts.clear();
+        working = "b";
+        assertEquals("b", decoder.decode(source).getText());
+        assertEquals(Arrays.asList("c", "a", "b"), attempts);
+
+        attempts.clear();
+        working = null;
+        assertNull(decoder.decode(source));
+        assertEquals(Arrays.asList("b", "a", "c"), attempts);
+    }
+
+    @Test
+    public void testSourcesKeepCroppingAndRotation() {
+        byte[] yuv = new byte[12 * 10];
+        for (int i = 0; i < yuv.length; i++) {
+            yuv[i] = (byte) i;
+        }
+        LuminanceSource rotatable = new RotatedPlanarYUVLuminanceSource(yuv, 12, 10, 0, 1, 2, 8, 6);
+        final List<LuminanceSource> sources = new ArrayList<>();
+        BinarizerStrategy recording = new BinarizerStrategy() {
+            @Override
+            public Binarizer createBinarizer(LuminanceSource source, Binarizer previous) {
+                attempts.add("recording");
+                sources.add(source);
+                return new GlobalHistogramBinarizer(source);
+            }
+        };
+
+        // A single strategy gets the frame's own source.
+        new Decoder(reader, Arrays.asList(recording)).decode(rotatable);
+        assertSame(rotatable, sources.get(0));
+
+        // Several share one copy of the matrix, and can still crop and rotate.
+        sources.clear();
+        new Decoder(reader, Arrays.asList(recording, recording)).decode(rotatable);
+        assertEquals(2, sources.size());
+        for (LuminanceSource source : sources) {
+            assertTrue(source.isCropSupported());
+            assertTrue(source.isRotateSupported());
+            assertEquals(rotatable.rotateCounterClockwise().toString(), source.rotateCounterClockwise().toString());
+            assertEquals(rotatable.toString(), source.toString());
+        }
+        byte[] matrix = sources.get(0).getMatrix();
+        assertArrayEquals(rotatable.getMatrix(), Arrays.copyOf(matrix, 8 * 6));
+        assertSame(matrix, sources.get(1).getMatrix());
+        assertEquals(rotatable.toString(), sources.get(1).toString());
+    }
+}
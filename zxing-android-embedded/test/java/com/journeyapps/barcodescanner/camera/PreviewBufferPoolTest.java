@@ -0,0 +1,62 @@
+package com.journeyapps.barcodescanner.camera;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ *
+ */
+public class PreviewBufferPoolTest {
+
+    @Test
+    public void testAcquireAllocatesWhenEmpty() {
+        PreviewBufferPool pool = new PreviewBufferPool(16, 2);
+        byte[] first = pool.acquire();
+        byte[] second = pool.acquire();
+        assertNotSame(first, second);
+        // The pool is empty now, so a new buffer is allocated.
+        byte[] third = pool.acquire();
+        assertEquals(16, third.length);
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+    }
+
+    @Test
+    public void testReleaseReusesBuffers() {
+        PreviewBufferPool pool = new PreviewBufferPool(16, 1);
+        byte[] buffer = pool.acquire();
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire());
+    }
+
+    @Test
+    public void testReleaseDropsWrongSize() {
+        PreviewBufferPool pool = new PreviewBufferPool(16, 1);
+        byte[] buffer = pool.acquire();
+        pool.release(new byte[8]);
+        pool.release(null);
+        // Still empty: the next buffer is new, and of the right size.
+        byte[] next = pool.acquire();
+        assertEquals(16, next.length);
+        assertNotSame(buffer, next);
+    }
+
+    @Test
+    public void testReleaseKeepsAtMostCapacity() {
+        PreviewBufferPool pool = new PreviewBufferPool(16, 2);
+        byte[] first = pool.acquire();
+        byte[] second = pool.acquire();
+        byte[] extra = pool.acquire();
+        pool.release(first);
+        pool.release(second);
+        // The pool is full, so this one is dropped.
+        pool.release(extra);
+        assertSame(first, pool.acquire());
+        assertSame(second, pool.acquire());
+        byte[] next = pool.acquire();
+        assertNotSame(extra, next);
+        assertNotSame(first, next);
+        assertNotSame(second, next);
+    }
+}